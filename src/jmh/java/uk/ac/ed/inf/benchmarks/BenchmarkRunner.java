@@ -0,0 +1,112 @@
+package uk.ac.ed.inf.benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Properties;
+import java.util.TreeMap;
+
+// Runs the benchmarks and optionally compares them with a saved baseline.
+// Arguments (empty values are ignored):
+//   --include=<regex>    benchmarks to run, default all
+//   --save=<file>        write the scores as a new baseline
+//   --baseline=<file>    compare against a saved baseline
+//   --threshold=<pct>    how much slower than the baseline counts as a regression, default 10
+// Exits with status 1 if any benchmark regressed.
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = ".*";
+        String save = "";
+        String baseline = "";
+        double threshold = 10;
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            String name = split < 0 ? arg : arg.substring(0, split);
+            String value = split < 0 ? "" : arg.substring(split + 1).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            switch (name) {
+                case "--include" -> include = value;
+                case "--save" -> save = value;
+                case "--baseline" -> baseline = value;
+                case "--threshold" -> threshold = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+
+        Collection<RunResult> results = new Runner(new OptionsBuilder().include(include).build()).run();
+        Properties scores = new Properties();
+        for (RunResult result : results) {
+            scores.setProperty(key(result.getParams()), Double.toString(result.getPrimaryResult().getScore()));
+        }
+
+        if (!save.isEmpty()) {
+            try (Writer writer = Files.newBufferedWriter(Path.of(save))) {
+                scores.store(writer, "JMH baseline");
+            }
+            System.out.println("Saved baseline to " + save);
+        }
+        if (!baseline.isEmpty() && compare(results, load(Path.of(baseline)), threshold) > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Prints one line per benchmark and returns the number of regressions
+    static int compare(Collection<RunResult> results, Properties baseline, double thresholdPercent) {
+        TreeMap<String, String> lines = new TreeMap<>();
+        int regressions = 0;
+        for (RunResult result : results) {
+            String key = key(result.getParams());
+            double score = result.getPrimaryResult().getScore();
+            String saved = baseline.getProperty(key);
+            if (saved == null) {
+                lines.put(key, String.format("  new         %s %.3f %s", key, score, result.getPrimaryResult().getScoreUnit()));
+                continue;
+            }
+            double before = Double.parseDouble(saved);
+            // Positive change is always worse: more time per op, or fewer ops per time
+            double change = result.getParams().getMode() == Mode.Throughput
+                    ? (before - score) / before * 100
+                    : (score - before) / before * 100;
+            boolean regressed = change > thresholdPercent;
+            if (regressed) {
+                regressions++;
+            }
+            lines.put(key, String.format("  %-10s  %s %.3f -> %.3f %s (%+.1f%%)",
+                    regressed ? "REGRESSED" : "ok", key, before, score, result.getPrimaryResult().getScoreUnit(), change));
+        }
+        System.out.println("Comparison with baseline, threshold " + thresholdPercent + "%:");
+        lines.values().forEach(System.out::println);
+        System.out.println(regressions == 0 ? "No regressions" : regressions + " benchmark(s) regressed");
+        return regressions;
+    }
+
+    // Benchmark method, mode and parameter values, e.g.
+    // uk.ac.ed.inf.benchmarks.PathPlanningBenchmark.calculatePath[AverageTime,raster=false,restaurant=La Trattoria]
+    static String key(BenchmarkParams params) {
+        StringBuilder key = new StringBuilder(params.getBenchmark()).append('[').append(params.getMode().name());
+        params.getParamsKeys().stream().sorted()
+                .forEach(name -> key.append(',').append(name).append('=').append(params.getParam(name)));
+        return key.append(']').toString();
+    }
+
+    private static Properties load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,67 @@
+package uk.ac.ed.inf.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import uk.ac.ed.inf.data.ReferenceData;
+import uk.ac.ed.inf.models.NoFlyZone;
+import uk.ac.ed.inf.models.Order;
+import uk.ac.ed.inf.models.Region;
+import uk.ac.ed.inf.models.Restaurant;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+// Reference data and orders from src/jmh/resources/fixtures, so benchmark
+// numbers never depend on the ILP server being up or its data changing
+final class Fixtures {
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private Fixtures() {}
+
+    static ReferenceData referenceData() {
+        return new ReferenceData(
+                Arrays.asList(read("restaurants.json", Restaurant[].class)),
+                noFlyZones(),
+                centralArea(),
+                1, Instant.EPOCH);
+    }
+
+    static List<NoFlyZone> noFlyZones() {
+        return Arrays.asList(read("noFlyZones.json", NoFlyZone[].class));
+    }
+
+    static Region centralArea() {
+        return read("centralArea.json", Region.class);
+    }
+
+    static List<Order> orders() {
+        return Arrays.asList(read("orders.json", Order[].class));
+    }
+
+    static Restaurant restaurant(String name) {
+        for (Restaurant restaurant : read("restaurants.json", Restaurant[].class)) {
+            if (restaurant.getName().equals(name)) {
+                return restaurant;
+            }
+        }
+        throw new IllegalArgumentException("No fixture restaurant named " + name);
+    }
+
+    private static <T> T read(String name, Class<T> type) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture " + name);
+            }
+            return MAPPER.readValue(in, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
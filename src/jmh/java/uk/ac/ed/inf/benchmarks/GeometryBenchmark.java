@@ -0,0 +1,100 @@
+package uk.ac.ed.inf.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.models.NoFlyZone;
+import uk.ac.ed.inf.pathfinding.Airspace;
+import uk.ac.ed.inf.pathfinding.CompiledPolygon;
+import uk.ac.ed.inf.pathfinding.Geometry;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// The point in polygon and segment tests the planner runs for every
+// expanded move. Each invocation checks a fixed batch of random moves around
+// the central area, so the numbers are per batch of BATCH tests.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GeometryBenchmark {
+    static final int BATCH = 1024;
+
+    private final double[] fromLng = new double[BATCH];
+    private final double[] fromLat = new double[BATCH];
+    private final double[] toLng = new double[BATCH];
+    private final double[] toLat = new double[BATCH];
+    private final LngLat[] from = new LngLat[BATCH];
+    private final LngLat[] to = new LngLat[BATCH];
+
+    private List<LngLat> centralVertices;
+    private List<NoFlyZone> noFlyZones;
+    private CompiledPolygon centralArea;
+    private Airspace airspace;
+
+    @Setup
+    public void setUp() {
+        centralVertices = Fixtures.centralArea().getVertices();
+        noFlyZones = Fixtures.noFlyZones();
+        centralArea = new CompiledPolygon(centralVertices);
+        airspace = Airspace.compile(noFlyZones, Fixtures.centralArea());
+
+        Random random = new Random(42);
+        for (int i = 0; i < BATCH; i++) {
+            from[i] = new LngLat(-3.1950 + random.nextDouble() * 0.0130, 55.9415 + random.nextDouble() * 0.0060);
+            to[i] = from[i].nextPosition(random.nextInt(16) * 22.5);
+            fromLng[i] = from[i].getLng();
+            fromLat[i] = from[i].getLat();
+            toLng[i] = to[i].getLng();
+            toLat[i] = to[i].getLat();
+        }
+    }
+
+    @Benchmark
+    public void isPointInPolygon(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(Geometry.isPointInPolygon(to[i], centralVertices));
+        }
+    }
+
+    @Benchmark
+    public void compiledContains(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(centralArea.contains(toLng[i], toLat[i]));
+        }
+    }
+
+    // Every move against every edge of every zone, as the original planner did
+    @Benchmark
+    public void linesIntersect(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            boolean crosses = false;
+            for (NoFlyZone zone : noFlyZones) {
+                List<LngLat> vertices = zone.getVertices();
+                for (int v = 0; v < vertices.size() && !crosses; v++) {
+                    crosses = Geometry.linesIntersect(from[i], to[i], vertices.get(v), vertices.get((v + 1) % vertices.size()));
+                }
+            }
+            blackhole.consume(crosses);
+        }
+    }
+
+    @Benchmark
+    public void airspaceCrossesNoFlyZone(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(airspace.crossesNoFlyZone(fromLng[i], fromLat[i], toLng[i], toLat[i]));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package uk.ac.ed.inf.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ed.inf.controllers.RestServiceController;
+import uk.ac.ed.inf.data.ReferenceData;
+import uk.ac.ed.inf.models.CreditCardInformation;
+import uk.ac.ed.inf.models.Order;
+import uk.ac.ed.inf.validation.CardValidator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// performOrderValidation over the fixture orders, which cover every
+// validation code. Score is fixture batches per millisecond.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OrderValidationBenchmark {
+    private RestServiceController controller;
+    private ReferenceData referenceData;
+    private List<Order> orders;
+    private CardValidator cardValidator;
+
+    @Setup
+    public void setUp() {
+        controller = new RestServiceController();
+        referenceData = Fixtures.referenceData();
+        orders = Fixtures.orders();
+        cardValidator = new CardValidator();
+    }
+
+    @Benchmark
+    public void performOrderValidation(Blackhole blackhole) {
+        for (Order order : orders) {
+            blackhole.consume(controller.performOrderValidation(order, referenceData));
+        }
+    }
+
+    // The card checks alone, which run last for every otherwise valid order
+    @Benchmark
+    public void cardChecks(Blackhole blackhole) {
+        for (Order order : orders) {
+            CreditCardInformation card = order.getCreditCardInformation();
+            blackhole.consume(cardValidator.isValidCardNumber(card.getCreditCardNumber()));
+            blackhole.consume(cardValidator.isValidExpiry(card.getCreditCardExpiry()));
+            blackhole.consume(cardValidator.isValidCvv(card.getCvv()));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package uk.ac.ed.inf.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.models.DeliveryConstants;
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.pathfinding.Airspace;
+import uk.ac.ed.inf.pathfinding.GridPathPlanner;
+import uk.ac.ed.inf.pathfinding.OccupancyRasterizer;
+import uk.ac.ed.inf.pathfinding.PlannerAlgorithm;
+import uk.ac.ed.inf.pathfinding.SearchStats;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The planner from each fixture restaurant to Appleton Tower. The route
+// cache is bypassed, every invocation runs the planner. The states expanded
+// are reported next to the time, nodesExpanded / plans per plan.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PathPlanningBenchmark {
+    @Param({
+            "Civerinos Slice",
+            "Sora Lella Vegan Restaurant",
+            "Domino's Pizza - Central",
+            "Sodeberg Pavillion",
+            "La Trattoria",
+            "Halal Pizza",
+            "World of Pizza"
+    })
+    public String restaurant;
+
+    // Plan against the plain compiled airspace or with the occupancy raster
+    @Param({"false", "true"})
+    public boolean raster;
+
+    @Param({"astar", "bidirectional", "visibility", "anytime"})
+    public String algorithm;
+
+    private GridPathPlanner planner;
+    private Airspace airspace;
+    private LngLat start;
+
+    @Setup
+    public void setUp() {
+        airspace = Fixtures.referenceData().getAirspace();
+        if (raster) {
+            airspace = airspace.withRaster(new OccupancyRasterizer().rasterize(Fixtures.noFlyZones(), Fixtures.centralArea()));
+        }
+        planner = new GridPathPlanner(airspace, PlannerAlgorithm.parse(algorithm));
+        start = Fixtures.restaurant(restaurant).getLocation();
+    }
+
+    @Benchmark
+    public List<LngLat> calculatePath(Counters counters) {
+        SearchStats stats = new SearchStats();
+        List<LngLat> path = planner.plan(start, DeliveryConstants.APPLETON_TOWER, stats);
+        counters.nodesExpanded += stats.getNodesExpanded();
+        counters.plans++;
+        return path;
+    }
+
+    // Totals per iteration, reported as they are
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long nodesExpanded;
+        public long plans;
+    }
+}
@@ -0,0 +1,129 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import uk.ac.ed.inf.batch.BatchExecutor;
+import uk.ac.ed.inf.batch.OrderIngestion;
+import uk.ac.ed.inf.data.IlpRestClient;
+import uk.ac.ed.inf.data.ReferenceData;
+import uk.ac.ed.inf.data.ReferenceDataStore;
+import uk.ac.ed.inf.data.SnapshotFile;
+import uk.ac.ed.inf.exception.UpstreamUnavailableException;
+import uk.ac.ed.inf.validation.OrderValidator;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Offline order validation against local files, with the same rules and
+// output as /validateOrders. Orders are streamed, so memory use does not
+// grow with the size of the dump.
+//
+//   java -Dloader.main=uk.ac.ed.inf.ValidateOrders -cp PizzaDronz.jar org.springframework.boot.loader.PropertiesLauncher \
+//       [--ndjson] [--snapshot FILE | --base-url URL] ORDERS [RESULTS]
+//
+// ORDERS is a JSON array or newline delimited JSON, RESULTS is written as a
+// JSON array or with --ndjson as NDJSON; either may be - for stdin / stdout.
+// Reference data is read from a snapshot file (see ilp.snapshot.file) or
+// fetched once from the ILP server. A malformed order stops the run with its
+// position on stderr and exit status 1, and a JSON array RESULTS is left
+// unterminated.
+public class ValidateOrders {
+    private static final String USAGE = "usage: ValidateOrders [--ndjson] [--snapshot FILE | --base-url URL] ORDERS [RESULTS]";
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.in, System.out, System.err));
+    }
+
+    static int run(String[] args, InputStream stdin, PrintStream stdout, PrintStream stderr) {
+        boolean ndjson = false;
+        String snapshot = null;
+        String baseUrl = ReferenceDataStore.DEFAULT_BASE_URL;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--ndjson")) {
+                ndjson = true;
+            } else if (args[i].equals("--snapshot") && i + 1 < args.length) {
+                snapshot = args[++i];
+            } else if (args[i].equals("--base-url") && i + 1 < args.length) {
+                baseUrl = args[++i];
+            } else if (args[i].startsWith("--")) {
+                files.clear();
+                break;
+            } else {
+                files.add(args[i]);
+            }
+        }
+        if (files.isEmpty() || files.size() > 2) {
+            stderr.println(USAGE);
+            return 2;
+        }
+        String orders = files.get(0);
+        String results = files.size() > 1 ? files.get(1) : "-";
+
+        BatchExecutor batchExecutor = new BatchExecutor();
+        try {
+            ReferenceData referenceData = loadReferenceData(snapshot, baseUrl);
+            OrderValidator orderValidator = new OrderValidator();
+            ObjectMapper objectMapper = JsonMapper.builder()
+                    .findAndAddModules()
+                    .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .build();
+
+            long count;
+            InputStream in = orders.equals("-") ? stdin : new BufferedInputStream(Files.newInputStream(Path.of(orders)));
+            try {
+                OutputStream out = results.equals("-") ? stdout : new BufferedOutputStream(Files.newOutputStream(Path.of(results)));
+                try {
+                    count = new OrderIngestion(objectMapper, batchExecutor)
+                            .validate(in, out, ndjson, order -> orderValidator.validateQuietly(order, referenceData));
+                    out.flush();
+                } finally {
+                    if (out != stdout) {
+                        out.close();
+                    }
+                }
+            } finally {
+                if (in != stdin) {
+                    in.close();
+                }
+            }
+            stderr.println("Validated " + count + " orders against reference data version " + referenceData.getVersion());
+            return 0;
+        } catch (JsonProcessingException e) {
+            JsonLocation location = e.getLocation();
+            stderr.println("ValidateOrders failed: malformed order"
+                    + (location != null ? " at line " + location.getLineNr() + ", column " + location.getColumnNr() : "")
+                    + ": " + e.getOriginalMessage());
+            return 1;
+        } catch (IOException | UpstreamUnavailableException e) {
+            stderr.println("ValidateOrders failed: " + e.getMessage());
+            return 1;
+        } finally {
+            batchExecutor.destroy();
+        }
+    }
+
+    private static ReferenceData loadReferenceData(String snapshot, String baseUrl) throws IOException {
+        if (snapshot != null) {
+            return SnapshotFile.read(Path.of(snapshot)).getReferenceData();
+        }
+        IlpRestClient client = new IlpRestClient();
+        ReferenceDataStore store = new ReferenceDataStore(client, baseUrl, ReferenceDataStore.DEFAULT_TTL_SECONDS);
+        try {
+            return store.current();
+        } finally {
+            store.destroy();
+            client.destroy();
+        }
+    }
+}
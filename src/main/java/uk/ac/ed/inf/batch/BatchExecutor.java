@@ -0,0 +1,73 @@
+package uk.ac.ed.inf.batch;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+// Runs batch work on a bounded fork-join pool. Items are pulled from the input
+// lazily and at most maxInFlight of them are queued or running at once, so a
+// large batch never needs to be held in memory as a whole.
+@Component
+public class BatchExecutor implements DisposableBean {
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+
+    private final ForkJoinPool pool;
+    private final int maxInFlight;
+
+    // Receives results one by one, e.g. to write them to a response stream
+    public interface Sink<T> {
+        void accept(T result) throws IOException;
+    }
+
+    public BatchExecutor() {
+        this(0, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    @Autowired
+    public BatchExecutor(@Value("${ilp.batch.parallelism:0}") int parallelism,
+                         @Value("${ilp.batch.max-in-flight:" + DEFAULT_MAX_IN_FLIGHT + "}") int maxInFlight) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    // Runs a single task on the batch pool
+    public <T> ForkJoinTask<T> submit(Callable<T> task) {
+        return pool.submit(task);
+    }
+
+    // Applies task to every input in parallel and hands the results to the
+    // sink in input order as soon as each one and all before it are done
+    public <I, O> void forEachOrdered(Iterator<I> inputs, Function<I, O> task, Sink<O> sink) throws IOException {
+        ArrayDeque<ForkJoinTask<O>> window = new ArrayDeque<>();
+        try {
+            while (inputs.hasNext()) {
+                I input = inputs.next();
+                window.add(pool.submit(() -> task.apply(input)));
+                if (window.size() >= maxInFlight) {
+                    sink.accept(window.poll().join());
+                }
+            }
+            while (!window.isEmpty()) {
+                sink.accept(window.poll().join());
+            }
+        } finally {
+            // Only left over if reading, a task or the sink failed
+            for (ForkJoinTask<O> pending : window) {
+                pending.cancel(false);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,193 @@
+package uk.ac.ed.inf.batch;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.inf.metrics.IlpMetrics;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Runs a batch through three stages: validate, plan and write. Validation and
+// planning each have their own worker pool and a bounded number of slots
+// (workers plus queued items); handing an item to a full stage blocks, so a
+// slow planner first stalls the validation workers and then the reader, and
+// memory stays bounded whatever the size of the input. Results are written
+// by the calling thread in input order, with at most maxInFlight items
+// between the reader and the writer.
+@Component
+public class DeliveryPipeline implements DisposableBean {
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+
+    static final String VALIDATE = "validate";
+    static final String PLAN = "plan";
+    static final String WRITE = "write";
+
+    private final Stage validation;
+    private final Stage planning;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile IlpMetrics metrics;
+
+    public DeliveryPipeline() {
+        this(0, 0, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    @Autowired
+    public DeliveryPipeline(@Value("${ilp.pipeline.validation-threads:0}") int validationThreads,
+                            @Value("${ilp.pipeline.planner-threads:0}") int plannerThreads,
+                            @Value("${ilp.pipeline.queue-capacity:" + DEFAULT_QUEUE_CAPACITY + "}") int queueCapacity,
+                            @Value("${ilp.pipeline.max-in-flight:" + DEFAULT_MAX_IN_FLIGHT + "}") int maxInFlight) {
+        this.validation = new Stage(VALIDATE, validationThreads, queueCapacity);
+        this.planning = new Stage(PLAN, plannerThreads, queueCapacity);
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    @Autowired(required = false)
+    public void setMetrics(IlpMetrics metrics) {
+        this.metrics = metrics;
+        for (Stage stage : new Stage[] { validation, planning }) {
+            metrics.gauge("ilp.pipeline.queue.depth", stage.executor, executor -> executor.getQueue().size(), "stage", stage.name);
+        }
+        metrics.gauge("ilp.pipeline.in.flight", inFlight, AtomicInteger::get);
+    }
+
+    // Validates every input, plans the ones that pass and hands the results
+    // to the sink in input order. Either step may return null to drop an
+    // item. Returns the number of results written.
+    public <I, V, O> long run(Iterator<I> inputs, Function<I, V> validate, Function<V, O> plan,
+                              BatchExecutor.Sink<O> sink) throws IOException {
+        ArrayDeque<CompletableFuture<O>> window = new ArrayDeque<>();
+        // Set when the run fails, so queued items are skipped rather than worked on
+        AtomicBoolean abandoned = new AtomicBoolean();
+        long written = 0;
+        try {
+            while (inputs.hasNext()) {
+                I input = inputs.next();
+                CompletableFuture<O> result = new CompletableFuture<>();
+                window.add(result);
+                inFlight.incrementAndGet();
+                validation.execute(() -> {
+                    V valid = abandoned.get() ? null : timed(VALIDATE, validate, input);
+                    if (valid == null) {
+                        result.complete(null);
+                        return;
+                    }
+                    planning.execute(() -> result.complete(abandoned.get() ? null : timed(PLAN, plan, valid)), result);
+                }, result);
+                if (window.size() >= maxInFlight) {
+                    written += write(window.poll(), sink);
+                }
+            }
+            while (!window.isEmpty()) {
+                written += write(window.poll(), sink);
+            }
+            return written;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Delivery pipeline interrupted");
+        } finally {
+            // Only left over if reading, a stage or the sink failed
+            abandoned.set(!window.isEmpty());
+            inFlight.addAndGet(-window.size());
+        }
+    }
+
+    private <O> int write(CompletableFuture<O> next, BatchExecutor.Sink<O> sink) throws IOException {
+        inFlight.decrementAndGet();
+        O result = next.join();
+        if (result == null) {
+            return 0;
+        }
+        long started = System.nanoTime();
+        sink.accept(result);
+        record(WRITE, System.nanoTime() - started);
+        return 1;
+    }
+
+    // Only the step itself is timed, not the wait to hand its result on
+    private <T, R> R timed(String stage, Function<T, R> step, T input) {
+        long started = System.nanoTime();
+        R result = step.apply(input);
+        record(stage, System.nanoTime() - started);
+        return result;
+    }
+
+    private void record(String stage, long nanos) {
+        IlpMetrics m = metrics;
+        if (m != null) {
+            m.recordPipelineStage(stage, nanos);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        validation.executor.shutdownNow();
+        planning.executor.shutdownNow();
+    }
+
+    // A stage task, which may block handing its result on to the next stage
+    private interface StageTask {
+        void run() throws InterruptedException;
+    }
+
+    // A fixed pool of workers and a semaphore bounding how many items the
+    // stage holds, running or queued
+    private final class Stage {
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private final Semaphore slots;
+
+        Stage(String name, int threads, int queueCapacity) {
+            int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            AtomicInteger created = new AtomicInteger();
+            this.name = name;
+            this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "pipeline-" + name + "-" + created.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.slots = new Semaphore(workers + Math.max(0, queueCapacity));
+        }
+
+        // Waits for a free slot, then queues the task. A task that fails
+        // completes the item's result exceptionally.
+        void execute(StageTask task, CompletableFuture<?> result) throws InterruptedException {
+            long waitStarted = System.nanoTime();
+            slots.acquire();
+            IlpMetrics m = metrics;
+            if (m != null) {
+                m.recordPipelineBlocked(name, System.nanoTime() - waitStarted);
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        result.completeExceptionally(e);
+                    } catch (RuntimeException | Error e) {
+                        result.completeExceptionally(e);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                slots.release();
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
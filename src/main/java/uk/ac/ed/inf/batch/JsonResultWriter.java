@@ -0,0 +1,64 @@
+package uk.ac.ed.inf.batch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Writes a sequence of values either as one JSON array or as newline
+// delimited JSON, one value at a time, flushing every few values so a client
+// sees results while the rest of the batch is still being worked on. The
+// array is only closed by finish(), so output cut short by a failure cannot
+// be read as a complete batch.
+public class JsonResultWriter implements Closeable {
+    private static final int FLUSH_EVERY = 256;
+
+    private final JsonGenerator generator;
+    private final boolean ndjson;
+    private long written;
+    private boolean finished;
+
+    public JsonResultWriter(ObjectMapper objectMapper, OutputStream out, boolean ndjson) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        // The caller owns the stream, e.g. the servlet response
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.ndjson = ndjson;
+        if (ndjson) {
+            generator.setRootValueSeparator(null);
+        } else {
+            generator.writeStartArray();
+        }
+    }
+
+    public void write(Object value) throws IOException {
+        generator.writeObject(value);
+        if (ndjson) {
+            generator.writeRaw('\n');
+        }
+        if (++written % FLUSH_EVERY == 0) {
+            generator.flush();
+        }
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    // Call once every result has been written
+    public void finish() throws IOException {
+        if (!ndjson) {
+            generator.writeEndArray();
+        }
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            // Flush what was written, but leave the array open
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        }
+        generator.close();
+    }
+}
@@ -0,0 +1,50 @@
+package uk.ac.ed.inf.batch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import uk.ac.ed.inf.models.Order;
+import uk.ac.ed.inf.models.OrderValidationResult;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Function;
+
+// Validates a stream of orders, a JSON array or newline delimited JSON. Orders
+// are parsed one at a time with Jackson's streaming parser, validated on the
+// batch pool and written out in input order as soon as they are done, so
+// only the executor's in-flight window is held in memory however large the
+// input is. Used by /validateOrders and the ValidateOrders command line tool.
+public class OrderIngestion {
+    private final ObjectMapper objectMapper;
+    private final BatchExecutor batchExecutor;
+
+    public OrderIngestion(ObjectMapper objectMapper, BatchExecutor batchExecutor) {
+        this.objectMapper = objectMapper;
+        this.batchExecutor = batchExecutor;
+    }
+
+    // Returns the number of orders validated. An order that cannot be parsed
+    // throws a JsonProcessingException; it, or a validator that throws,
+    // abandons the rest of the input and leaves a JSON array unterminated.
+    // Neither stream is closed.
+    public long validate(InputStream in, OutputStream out, boolean ndjson,
+                         Function<Order, OrderValidationResult> validator) throws IOException {
+        // The caller owns the input, as JsonResultWriter leaves it the output
+        try (MappingIterator<Order> orders = objectMapper.readerFor(Order.class)
+                .without(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+                .readValues(in);
+             JsonResultWriter writer = new JsonResultWriter(objectMapper, out, ndjson)) {
+            batchExecutor.forEachOrdered(orders, validator, writer::write);
+            writer.finish();
+            return writer.getWritten();
+        } catch (RuntimeException e) {
+            // MappingIterator wraps parse errors, which carry the input location
+            if (e.getCause() instanceof JsonProcessingException) {
+                throw (JsonProcessingException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package uk.ac.ed.inf.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Runs Tomcat request handling and the async work of streaming responses on
+// virtual threads, so requests blocked on the ILP server or on a long batch
+// no longer tie up a bounded pool of platform threads. Enabled with
+// ilp.threads.virtual=true. The build targets Java 17, so the executor is
+// looked up reflectively; on an older runtime the setting is logged and ignored.
+@Configuration
+@ConditionalOnProperty(name = "ilp.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    private final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (executor != null) {
+                protocolHandler.setExecutor(executor);
+                logger.info("Handling requests on virtual threads");
+            }
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (executor != null) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(executor));
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() on Java 21 and later, null before
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            logger.warn("ilp.threads.virtual is set but Java {} has no virtual threads, using platform threads",
+                    Runtime.version().feature());
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+}
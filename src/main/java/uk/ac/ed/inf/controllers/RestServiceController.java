@@ -1,22 +1,117 @@
 package uk.ac.ed.inf.controllers;
 
+import java.io.InputStream;
 import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.ac.ed.inf.batch.BatchExecutor;
+import uk.ac.ed.inf.batch.DeliveryPipeline;
+import uk.ac.ed.inf.batch.OrderIngestion;
+import uk.ac.ed.inf.data.MenuIndex;
+import uk.ac.ed.inf.data.ReferenceData;
+import uk.ac.ed.inf.data.ReferenceDataStore;
+import uk.ac.ed.inf.data.RouteTableStore;
+import uk.ac.ed.inf.encoding.PathCodec;
+import uk.ac.ed.inf.geojson.GeoJsonWriter;
+import uk.ac.ed.inf.geojson.PathFeature;
+import uk.ac.ed.inf.metrics.IlpMetrics;
 import uk.ac.ed.inf.models.*;
-import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
+import uk.ac.ed.inf.pathfinding.Airspace;
+import uk.ac.ed.inf.pathfinding.Geometry;
+import uk.ac.ed.inf.pathfinding.GridPathPlanner;
+import uk.ac.ed.inf.pathfinding.PlannerAlgorithm;
+import uk.ac.ed.inf.pathfinding.RouteCache;
+import uk.ac.ed.inf.pathfinding.SearchStats;
+import uk.ac.ed.inf.tours.TourPlanner;
+import uk.ac.ed.inf.validation.CardValidator;
+import uk.ac.ed.inf.validation.OrderValidator;
+import java.time.Duration;
 import java.util.*;
-import org.springframework.web.client.RestTemplate;
-import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.stream.Collectors;
 
 @RestController
 public class RestServiceController {
+    private static final String DELIVERY_PATH_NAME = "Delivery Path";
+    private static final MediaType ANGLES = MediaType.parseMediaType(PathCodec.ANGLES_VALUE);
+    private static final MediaType DELTA_VARINT = MediaType.parseMediaType(PathCodec.DELTA_VARINT_VALUE);
+    public static final String SUBOPTIMALITY_BOUND_HEADER = "X-Suboptimality-Bound";
+    public static final long DEFAULT_ANYTIME_BUDGET_MILLIS = 50;
+
+    private final ReferenceDataStore referenceDataStore;
+    private final BatchExecutor batchExecutor;
+    private final RouteCache routeCache;
+    private final RouteTableStore routeTableStore;
+    private final ObjectMapper objectMapper;
+    private final IlpMetrics metrics;
+    private final TourPlanner tourPlanner;
+    private final OrderValidator orderValidator;
+    private final OrderIngestion orderIngestion;
+    private final DeliveryPipeline deliveryPipeline;
+    private PlannerAlgorithm plannerAlgorithm = PlannerAlgorithm.ASTAR;
+    private double anytimeEpsilon = GridPathPlanner.DEFAULT_EPSILON;
+    private Duration anytimeTimeBudget = Duration.ofMillis(DEFAULT_ANYTIME_BUDGET_MILLIS);
+
+    @Autowired
+    public RestServiceController(ReferenceDataStore referenceDataStore, BatchExecutor batchExecutor, RouteCache routeCache,
+                                 RouteTableStore routeTableStore, ObjectMapper objectMapper, IlpMetrics metrics,
+                                 TourPlanner tourPlanner, OrderValidator orderValidator, DeliveryPipeline deliveryPipeline) {
+        this.referenceDataStore = referenceDataStore;
+        this.batchExecutor = batchExecutor;
+        this.routeCache = routeCache;
+        this.routeTableStore = routeTableStore;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.tourPlanner = tourPlanner;
+        this.orderValidator = orderValidator;
+        this.orderIngestion = new OrderIngestion(objectMapper, batchExecutor);
+        this.deliveryPipeline = deliveryPipeline;
+        // Keeps plans still running against a replaced airspace out of the route cache
+        referenceDataStore.addListener(snapshot -> routeCache.setCurrentAirspace(snapshot.getAirspace()));
+    }
+
+    public RestServiceController() {
+        this(new IlpMetrics());
+    }
+
+    private RestServiceController(IlpMetrics metrics) {
+        this(new ReferenceDataStore(), new BatchExecutor(), new RouteCache(), new RouteTableStore(), JsonMapper.builder()
+                .findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build(), metrics, new TourPlanner(), new OrderValidator(new CardValidator(), metrics), new DeliveryPipeline());
+    }
+
+    // Algorithm used when a request does not name one
+    @Value("${ilp.planner.algorithm:astar}")
+    public void setPlannerAlgorithm(String name) {
+        this.plannerAlgorithm = PlannerAlgorithm.parse(name);
+    }
+
+    // Bound and time budget of the anytime planner when a request does not set them
+    @Value("${ilp.planner.anytime.epsilon:" + GridPathPlanner.DEFAULT_EPSILON + "}")
+    public void setAnytimeEpsilon(double epsilon) {
+        this.anytimeEpsilon = epsilon;
+    }
+
+    @Value("${ilp.planner.anytime.time-budget-ms:" + DEFAULT_ANYTIME_BUDGET_MILLIS + "}")
+    public void setAnytimeTimeBudgetMillis(long millis) {
+        this.anytimeTimeBudget = Duration.ofMillis(millis);
+    }
+
     // 1. /uuid (GET)
     @GetMapping("/uuid")
     public String getUuid() {
@@ -77,7 +172,7 @@ public class RestServiceController {
             return ResponseEntity.badRequest().build();
         }
 
-        boolean isInside = isPointInPolygon(request.getPosition(), request.getRegion().getVertices());
+        boolean isInside = Geometry.isPointInPolygon(request.getPosition(), request.getRegion().getVertices());
         return ResponseEntity.ok(isInside);
     }
 
@@ -89,170 +184,246 @@ public class RestServiceController {
     }
 
     // 7. /calcDeliveryPath (POST)
+    // JSON by default, or one of the compact PathCodec encodings if the client accepts it.
+    // ?algorithm=astar|bidirectional|visibility|anytime overrides ilp.planner.algorithm for this request.
+    // Anytime planning takes ?epsilon= and ?timeBudgetMs= and reports the bound it achieved
+    // in the X-Suboptimality-Bound header.
     @PostMapping("/calcDeliveryPath")
-    public ResponseEntity<List<LngLat>> calcDeliveryPath(@RequestBody Order order) {
-        OrderValidationResult validationResult = performOrderValidation(order);
+    public ResponseEntity<?> calcDeliveryPath(@RequestBody Order order,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                              @RequestParam(value = "algorithm", required = false) String algorithm,
+                                              @RequestParam(value = "epsilon", required = false) Double epsilon,
+                                              @RequestParam(value = "timeBudgetMs", required = false) Long timeBudgetMs) {
+        Supplier<ReferenceData> snapshot = referenceDataStore.lazyCurrent();
+        OrderValidationResult validationResult = performOrderValidation(order, snapshot);
         if (validationResult.getOrderStatus() != OrderStatus.VALID) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
+        ReferenceData referenceData = snapshot.get();
 
         // Get restaurant location
-        Restaurant restaurant = getRestaurantForOrder(order);
+        Restaurant restaurant = getRestaurantForOrder(order, referenceData);
         if (restaurant == null) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
-        LngLat restaurantLocation = restaurant.getLocation();
-
-        // Get Appleton Tower location
-        LngLat appletonTower = new LngLat(-3.186874, 55.944494);
 
-        // Fetch no-fly zones and central area
-        List<NoFlyZone> noFlyZones = getNoFlyZones();
-        Region centralArea = getCentralArea();
-
-        // Calculate path
-        List<LngLat> path = calculatePath(restaurantLocation, appletonTower, noFlyZones, centralArea);
+        // Calculate path to Appleton Tower, served from the route cache when possible
+        PlannedRoute planned = planRequestedRoute(restaurant, referenceData, algorithm, epsilon, timeBudgetMs);
+        List<LngLat> path = planned.path;
 
         if (path == null || path.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
 
-        return ResponseEntity.ok(path);
+        MediaType encoding = negotiate(accept, MediaType.APPLICATION_JSON, ANGLES, DELTA_VARINT);
+        if (encoding == ANGLES) {
+            return planned.ok().contentType(ANGLES).body(PathCodec.encodeAngles(path));
+        }
+        if (encoding == DELTA_VARINT) {
+            return planned.ok().contentType(DELTA_VARINT).body(PathCodec.encodeDeltaVarint(path));
+        }
+        return planned.ok().body(path);
     }
 
     // 8. /calcDeliveryPathGeoJSON (POST)
     @PostMapping("/calcDeliveryPathGeoJSON")
-    public ResponseEntity<Object> calcDeliveryPathGeoJSON(@RequestBody Order order) {
-        OrderValidationResult validationResult = performOrderValidation(order);
+    public ResponseEntity<Object> calcDeliveryPathGeoJSON(@RequestBody Order order,
+                                                          @RequestParam(value = "algorithm", required = false) String algorithm,
+                                                          @RequestParam(value = "epsilon", required = false) Double epsilon,
+                                                          @RequestParam(value = "timeBudgetMs", required = false) Long timeBudgetMs) {
+        Supplier<ReferenceData> snapshot = referenceDataStore.lazyCurrent();
+        OrderValidationResult validationResult = performOrderValidation(order, snapshot);
         if (validationResult.getOrderStatus() != OrderStatus.VALID) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
+        ReferenceData referenceData = snapshot.get();
 
-        Restaurant restaurant = getRestaurantForOrder(order);
+        Restaurant restaurant = getRestaurantForOrder(order, referenceData);
         if (restaurant == null) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
-        LngLat restaurantLocation = restaurant.getLocation();
-
-        LngLat appletonTower = new LngLat(-3.186874, 55.944494);
 
-        List<NoFlyZone> noFlyZones = getNoFlyZones();
-        Region centralArea = getCentralArea();
+        PlannedRoute planned = planRequestedRoute(restaurant, referenceData, algorithm, epsilon, timeBudgetMs);
+        List<LngLat> route = planned.path;
 
-        List<LngLat> path = calculatePath(restaurantLocation, appletonTower, noFlyZones, centralArea);
-
-        if (path == null || path.isEmpty()) {
+        if (route == null || route.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
 
-        if (path.size() > 1 && path.get(0).closeTo(path.get(1))) {
-            path.remove(0);
+        // Serialized as a GeoJSON Feature straight from the shared route, hovers are skipped while writing
+        return planned.ok().body(new PathFeature(DELIVERY_PATH_NAME, null, route));
+    }
+
+    // 9. /validateOrders (POST)
+    // Accepts a JSON array or newline delimited JSON of orders and streams the
+    // results back in input order, as a JSON array or NDJSON depending on Accept
+    @PostMapping(value = "/validateOrders", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> validateOrders(InputStream body,
+                                                                @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Supplier<ReferenceData> referenceData = referenceDataStore.lazyCurrent();
+        boolean ndjson = negotiate(accept, MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON) == MediaType.APPLICATION_NDJSON;
+
+        StreamingResponseBody stream = out -> orderIngestion.validate(body, out, ndjson, order -> orderValidator.validateQuietly(order, referenceData));
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(stream);
+    }
+
+    // 10. /calcDeliveryPaths (POST)
+    // Plans every distinct restaurant route of the batch once, in parallel, and
+    // gives all orders from the same restaurant the same immutable path
+    @PostMapping("/calcDeliveryPaths")
+    public ResponseEntity<List<DeliveryPath>> calcDeliveryPaths(@RequestBody List<Order> orders) {
+        ReferenceData referenceData = referenceDataStore.current();
+
+        List<DeliveryPath> results = new ArrayList<>(orders.size());
+        Map<Restaurant, List<DeliveryPath>> ordersByRestaurant = new LinkedHashMap<>();
+        for (Order order : orders) {
+            OrderValidationResult validationResult = validateQuietly(order, referenceData);
+            DeliveryPath deliveryPath = new DeliveryPath();
+            deliveryPath.setOrderNo(order.getOrderNo());
+            deliveryPath.setOrderStatus(validationResult.getOrderStatus());
+            deliveryPath.setOrderValidationCode(validationResult.getOrderValidationCode());
+            results.add(deliveryPath);
+
+            if (validationResult.getOrderStatus() == OrderStatus.VALID) {
+                Restaurant restaurant = getRestaurantForOrder(order, referenceData);
+                ordersByRestaurant.computeIfAbsent(restaurant, r -> new ArrayList<>()).add(deliveryPath);
+            }
         }
-        // Check and remove duplicates at end
-        if (path.size() > 1 && path.get(path.size() - 1).closeTo(path.get(path.size() - 2))) {
-            path.remove(path.size() - 1);
+
+        Map<Restaurant, ForkJoinTask<List<LngLat>>> routes = new LinkedHashMap<>();
+        for (Restaurant restaurant : ordersByRestaurant.keySet()) {
+            routes.put(restaurant, batchExecutor.submit(() -> planDeliveryRoute(restaurant, referenceData, plannerAlgorithm)));
         }
+        routes.forEach((restaurant, route) -> {
+            List<LngLat> path = route.join();
+            for (DeliveryPath deliveryPath : ordersByRestaurant.get(restaurant)) {
+                deliveryPath.setPath(path);
+            }
+        });
+
+        return ResponseEntity.ok(results);
+    }
 
-        // Convert path to GeoJSON Feature
-        Map<String, Object> feature = new HashMap<>();
-        feature.put("type", "Feature");
+    // 11. /routeCacheStats (GET)
+    @GetMapping("/routeCacheStats")
+    public RouteCache.Stats routeCacheStats() {
+        return routeCache.getStats();
+    }
 
-        Map<String, Object> geometry = new HashMap<>();
-        geometry.put("type", "LineString");
+    // 12. /calcDeliveryPathsGeoJSON (POST)
+    // Accepts a JSON array or newline delimited JSON of orders and streams one
+    // GeoJSON FeatureCollection with a feature per valid order, in input order.
+    // Orders go through the delivery pipeline, validation and planning on
+    // separate bounded pools, so a slow planner throttles reading the body.
+    @PostMapping(value = "/calcDeliveryPathsGeoJSON", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> calcDeliveryPathsGeoJSON(InputStream body) {
+        ReferenceData referenceData = referenceDataStore.current();
+
+        StreamingResponseBody stream = out -> {
+            try (MappingIterator<Order> orders = objectMapper.readerFor(Order.class).readValues(body);
+                 GeoJsonWriter writer = new GeoJsonWriter(objectMapper, out)) {
+                deliveryPipeline.run(orders,
+                        order -> validateQuietly(order, referenceData).getOrderStatus() == OrderStatus.VALID ? order : null,
+                        order -> deliveryFeature(order, referenceData),
+                        writer::write);
+                writer.finish();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(stream);
+    }
 
-        // Convert LngLat to [lng, lat]
-        List<List<Double>> coordinates = new ArrayList<>();
-        for (LngLat point : path) {
-            coordinates.add(Arrays.asList(point.getLng(), point.getLat()));
+    // 13. /planTours (POST)
+    // Batches the valid orders into multi-stop tours from Appleton Tower, each
+    // within the move budget; invalid orders and ones out of range are left unassigned
+    @PostMapping("/planTours")
+    public ResponseEntity<TourPlan> planTours(@RequestBody TourRequest request) {
+        if (request == null || request.getOrders() == null) {
+            return ResponseEntity.badRequest().build();
         }
+        ReferenceData referenceData = referenceDataStore.current();
 
-        geometry.put("coordinates", coordinates);
-        feature.put("geometry", geometry);
-
-        Map<String, Object> properties = new HashMap<>();
-        properties.put("name", "Delivery Path");
-        feature.put("properties", properties);
+        Map<Restaurant, List<String>> ordersByRestaurant = new LinkedHashMap<>();
+        List<String> invalid = new ArrayList<>();
+        for (Order order : request.getOrders()) {
+            if (validateQuietly(order, referenceData).getOrderStatus() == OrderStatus.VALID) {
+                Restaurant restaurant = getRestaurantForOrder(order, referenceData);
+                ordersByRestaurant.computeIfAbsent(restaurant, r -> new ArrayList<>()).add(order.getOrderNo());
+            } else {
+                invalid.add(order.getOrderNo());
+            }
+        }
 
-        return ResponseEntity.ok(feature);
+        TourPlan plan = tourPlanner.plan(ordersByRestaurant, referenceData.getAirspace(), request.getMoveBudget());
+        plan.getUnassignedOrderNos().addAll(invalid);
+        return ResponseEntity.ok(plan);
     }
 
     //Helper methods
 
-    // Helper method to retrieve restaurant data
-    private RestTemplate restTemplate = new RestTemplate();
+    // The algorithm named by a request parameter, or the configured one
+    private PlannerAlgorithm algorithmFor(String name) {
+        return name == null ? plannerAlgorithm : PlannerAlgorithm.parse(name);
+    }
 
-    private List<Restaurant> getRestaurants() {
-        String url = "https://ilp-rest-2024.azurewebsites.net/restaurants";
-        try {
-            Restaurant[] restaurants = restTemplate.getForObject(url, Restaurant[].class);
-            return Arrays.asList(restaurants);
-        } catch (Exception e) {
-            // Handle exceptions (e.g., logging)
-            e.printStackTrace();
-            return Collections.emptyList();
+    // Plan the restaurant to Appleton Tower route, from the precomputed route
+    // table (which holds A* routes) or else through the route cache. The
+    // result is shared between requests so it is unmodifiable.
+    private List<LngLat> planDeliveryRoute(Restaurant restaurant, ReferenceData referenceData, PlannerAlgorithm algorithm) {
+        if (algorithm == PlannerAlgorithm.ANYTIME) {
+            return planAnytimeRoute(restaurant, referenceData, anytimeEpsilon, anytimeTimeBudget).path;
+        }
+        LngLat start = restaurant.getLocation();
+        Airspace airspace = referenceData.getAirspace();
+        if (algorithm == PlannerAlgorithm.ASTAR) {
+            List<LngLat> precomputed = routeTableStore.lookup(start, DeliveryConstants.APPLETON_TOWER, airspace);
+            if (precomputed != null) {
+                return precomputed;
+            }
         }
+        return routeCache.getOrCompute(start, DeliveryConstants.APPLETON_TOWER, airspace, algorithm,
+                () -> calculatePath(restaurant.getName(), algorithm, start, DeliveryConstants.APPLETON_TOWER, airspace));
     }
 
-    // Helper method to retrieve no-fly zones data
-    private List<NoFlyZone> getNoFlyZones() {
-        String url = "https://ilp-rest-2024.azurewebsites.net/noFlyZones";
-        try {
-            NoFlyZone[] zones = restTemplate.getForObject(url, NoFlyZone[].class);
-            return Arrays.asList(zones);
-        } catch (Exception e) {
-            // Handle exceptions
-            e.printStackTrace();
-            return Collections.emptyList();
+    // The route for a single order, planned as its request parameters ask
+    private PlannedRoute planRequestedRoute(Restaurant restaurant, ReferenceData referenceData, String algorithm,
+                                            Double epsilon, Long timeBudgetMs) {
+        PlannerAlgorithm planner = algorithmFor(algorithm);
+        if (planner != PlannerAlgorithm.ANYTIME) {
+            return new PlannedRoute(planDeliveryRoute(restaurant, referenceData, planner), 0);
         }
+        return planAnytimeRoute(restaurant, referenceData, epsilon == null ? anytimeEpsilon : epsilon,
+                timeBudgetMs == null ? anytimeTimeBudget : Duration.ofMillis(timeBudgetMs));
     }
 
-    // Helper method to retrieve central area data
-    private Region getCentralArea() {
-        String url = "https://ilp-rest-2024.azurewebsites.net/centralArea";
-        try {
-            Region centralArea = restTemplate.getForObject(url, Region.class);
-            return centralArea;
-        } catch (Exception e) {
-            // Handle exceptions
-            e.printStackTrace();
-            return null;
-        }
+    // Anytime routes depend on the epsilon and time budget, so they are planned
+    // per request rather than cached. A route table hit is already the A*
+    // route and is returned with a bound of 1.
+    private PlannedRoute planAnytimeRoute(Restaurant restaurant, ReferenceData referenceData, double epsilon, Duration timeBudget) {
+        LngLat start = restaurant.getLocation();
+        Airspace airspace = referenceData.getAirspace();
+        List<LngLat> precomputed = routeTableStore.lookup(start, DeliveryConstants.APPLETON_TOWER, airspace);
+        if (precomputed != null) {
+            return new PlannedRoute(precomputed, 1);
+        }
+        SearchStats stats = new SearchStats();
+        List<LngLat> path = calculatePath(restaurant.getName(), new GridPathPlanner(airspace, epsilon, timeBudget), start, DeliveryConstants.APPLETON_TOWER, stats);
+        return new PlannedRoute(path, stats.getSuboptimalityBound());
     }
 
-    // Helper method to validate credit card number using Luhn Algorithm
-    private boolean isValidCreditCardNumber(String ccNumber) {
-        if (ccNumber == null || !ccNumber.matches("\\d{16}")) {
-            return false;
-        }
-        int sum = 0;
-        boolean alternate = false;
-        for (int i = ccNumber.length() - 1; i >= 0; i--) {
-            int n = Integer.parseInt(ccNumber.substring(i, i + 1));
-            if (alternate) {
-                n *= 2;
-                if (n > 9) {
-                    n = (n % 10) + 1;
-                }
-            }
-            sum += n;
-            alternate = !alternate;
-        }
-        return (sum % 10 == 0);
+    // The delivery path feature of one valid order of a batch, null if no path exists
+    private PathFeature deliveryFeature(Order order, ReferenceData referenceData) {
+        Restaurant restaurant = getRestaurantForOrder(order, referenceData);
+        List<LngLat> route = restaurant == null ? null : planDeliveryRoute(restaurant, referenceData, plannerAlgorithm);
+        return route == null || route.isEmpty() ? null : new PathFeature(DELIVERY_PATH_NAME, order.getOrderNo(), route);
     }
 
-    // Helper method to validate expiry date
-    private boolean isValidExpiryDate(String expiryDate) {
-        if (expiryDate == null || !expiryDate.matches("\\d{2}/\\d{2}")) {
-            return false;
-        }
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/yy");
-            YearMonth expiry = YearMonth.parse(expiryDate, formatter);
-            YearMonth now = YearMonth.now();
-            return expiry.isAfter(now) || expiry.equals(now);
-        } catch (Exception e) {
-            return false;
-        }
+    // Validate one order of a batch, a malformed order must not abort the rest
+    private OrderValidationResult validateQuietly(Order order, ReferenceData referenceData) {
+        return orderValidator.validateQuietly(order, referenceData);
     }
 
     //Helper method to validate latitude and longitude
@@ -296,331 +467,96 @@ public class RestServiceController {
         return Double.compare(a.getLng(), b.getLng()) == 0 && Double.compare(a.getLat(), b.getLat()) == 0;
     }
 
-    private boolean isPointInPolygon(LngLat point, List<LngLat> vertices) {
-        int intersectCount = 0;
-        for (int i = 0; i < vertices.size(); i++) {
-            LngLat v1 = vertices.get(i);
-            LngLat v2 = vertices.get((i + 1) % vertices.size());
-
-            if (intersectsSegment(point, v1, v2)) {
-                intersectCount++;
-            }
-        }
-        return (intersectCount % 2) == 1;
-    }
-
-    private boolean intersectsSegment(LngLat p, LngLat a, LngLat b) {
-        if (a.getLat() > b.getLat()) {
-            LngLat temp = a;
-            a = b;
-            b = temp;
-        }
-        if (p.getLat() == a.getLat() || p.getLat() == b.getLat()) {
-            p = new LngLat(p.getLng(), p.getLat() + 0.00000001);
-        }
-        if (p.getLat() < a.getLat() || p.getLat() > b.getLat() || p.getLng() >= Math.max(a.getLng(), b.getLng())) {
-            return false;
-        }
-        if (p.getLng() < Math.min(a.getLng(), b.getLng())) {
-            return true;
-        }
-
-        double red = (p.getLat() - a.getLat()) / (p.getLng() - a.getLng());
-        double blue = (b.getLat() - a.getLat()) / (b.getLng() - a.getLng());
-        return red >= blue;
-    }
-
     // Helper method to validate the order internally
     public OrderValidationResult performOrderValidation(Order order) {
-        OrderValidationResult result = new OrderValidationResult();
-        result.setOrderStatus(OrderStatus.VALID);
-        result.setOrderValidationCode(OrderValidationCode.NO_ERROR);
-
-        // Check if pizzasInOrder is null or empty
-        if (order.getPizzasInOrder() == null || order.getPizzasInOrder().isEmpty()) {
-            result.setOrderStatus(OrderStatus.INVALID);
-            result.setOrderValidationCode(OrderValidationCode.EMPTY_ORDER);
-            return result;
-        }
-
-        // Check max pizza count
-        if (order.getPizzasInOrder().size() > 4) {
-            result.setOrderStatus(OrderStatus.INVALID);
-            result.setOrderValidationCode(OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED);
-            return result;
-        }
-
-        // Get restaurants data
-        List<Restaurant> restaurants = getRestaurants();
-
-        // Check that all pizzas are defined and get possible restaurants
-        Set<String> possibleRestaurants = null;
-        for (Pizza orderedPizza : order.getPizzasInOrder()) {
-            boolean pizzaDefined = false;
-            Set<String> pizzaRestaurants = new HashSet<>();
-            for (Restaurant restaurant : restaurants) {
-                for (Pizza menuPizza : restaurant.getMenu()) {
-                    if (orderedPizza.getName().equals(menuPizza.getName())) {
-                        pizzaDefined = true;
-                        pizzaRestaurants.add(restaurant.getName());
-                        break;
-                    }
-                }
-            }
-            if (!pizzaDefined) {
-                result.setOrderStatus(OrderStatus.INVALID);
-                result.setOrderValidationCode(OrderValidationCode.PIZZA_NOT_DEFINED);
-                return result;
-            }
-            if (possibleRestaurants == null) {
-                possibleRestaurants = pizzaRestaurants;
-            } else {
-                possibleRestaurants.retainAll(pizzaRestaurants);
-            }
-        }
-
-        // Check that pizzas are from the same restaurant
-        if (possibleRestaurants == null || possibleRestaurants.isEmpty()) {
-            result.setOrderStatus(OrderStatus.INVALID);
-            result.setOrderValidationCode(OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS);
-            return result;
-        }
-
-        // Get the restaurant
-        String restaurantName = possibleRestaurants.iterator().next();
-        Restaurant restaurant = null;
-        for (Restaurant r : restaurants) {
-            if (r.getName().equals(restaurantName)) {
-                restaurant = r;
-                break;
-            }
-        }
-
-        // Check restaurant is open on order date
-        String orderDayOfWeek = order.getOrderDate().getDayOfWeek().name();
-        if (!restaurant.getOpeningDays().contains(orderDayOfWeek)) {
-            result.setOrderStatus(OrderStatus.INVALID);
-            result.setOrderValidationCode(OrderValidationCode.RESTAURANT_CLOSED);
-            return result;
-        }
-
-        // Check pizza prices
-        for (Pizza orderedPizza : order.getPizzasInOrder()) {
-            boolean priceValid = false;
-            for (Pizza menuPizza : restaurant.getMenu()) {
-                if (orderedPizza.getName().equals(menuPizza.getName())) {
-                    if (orderedPizza.getPriceInPence() == menuPizza.getPriceInPence()) {
-                        priceValid = true;
-                    }
-                    break;
-                }
-            }
-            if (!priceValid) {
-                result.setOrderStatus(OrderStatus.INVALID);
-                result.setOrderValidationCode(OrderValidationCode.PRICE_FOR_PIZZA_INVALID);
-                return result;
-            }
-        }
-
-        // Check total price (including £1 delivery charge)
-        int totalPrice = order.getPizzasInOrder().stream()
-                .mapToInt(Pizza::getPriceInPence).sum() + 100;
-        if (order.getPriceTotalInPence() != totalPrice) {
-            result.setOrderStatus(OrderStatus.INVALID);
-            result.setOrderValidationCode(OrderValidationCode.TOTAL_INCORRECT);
-            return result;
-        }
-
-        // Check credit card number
-        String ccNumber = order.getCreditCardInformation().getCreditCardNumber();
-        if (!isValidCreditCardNumber(ccNumber)) {
-            result.setOrderStatus(OrderStatus.INVALID);
-            result.setOrderValidationCode(OrderValidationCode.CARD_NUMBER_INVALID);
-            return result;
-        }
-
-        // Check credit card expiry date
-        String expiryDate = order.getCreditCardInformation().getCreditCardExpiry();
-        if (!isValidExpiryDate(expiryDate)) {
-            result.setOrderStatus(OrderStatus.INVALID);
-            result.setOrderValidationCode(OrderValidationCode.EXPIRY_DATE_INVALID);
-            return result;
-        }
+        return performOrderValidation(order, referenceDataStore::current);
+    }
 
-        // Check CVV
-        String cvv = order.getCreditCardInformation().getCvv();
-        if (!cvv.matches("\\d{3}")) {
-            result.setOrderStatus(OrderStatus.INVALID);
-            result.setOrderValidationCode(OrderValidationCode.CVV_INVALID);
-            return result;
-        }
+    // Validate the order against a given reference data snapshot
+    public OrderValidationResult performOrderValidation(Order order, ReferenceData referenceData) {
+        return orderValidator.validate(order, referenceData);
+    }
 
-        // All checks passed
-        return result;
+    // The snapshot is only looked up if a check needs it
+    public OrderValidationResult performOrderValidation(Order order, Supplier<ReferenceData> referenceData) {
+        return orderValidator.validate(order, referenceData);
     }
 
     // Helper method to get the restaurant for the order
-    private Restaurant getRestaurantForOrder(Order order) {
-        List<Restaurant> restaurants = getRestaurants();
-        Set<String> possibleRestaurants = null;
-        for (Pizza orderedPizza : order.getPizzasInOrder()) {
-            Set<String> pizzaRestaurants = new HashSet<>();
-            for (Restaurant restaurant : restaurants) {
-                for (Pizza menuPizza : restaurant.getMenu()) {
-                    if (orderedPizza.getName().equals(menuPizza.getName())) {
-                        pizzaRestaurants.add(restaurant.getName());
-                        break;
-                    }
-                }
-            }
-            if (possibleRestaurants == null) {
-                possibleRestaurants = pizzaRestaurants;
-            } else {
-                possibleRestaurants.retainAll(pizzaRestaurants);
-            }
-        }
-        if (possibleRestaurants == null || possibleRestaurants.isEmpty()) {
-            return null;
-        }
-        String restaurantName = possibleRestaurants.iterator().next();
-        for (Restaurant r : restaurants) {
-            if (r.getName().equals(restaurantName)) {
-                return r;
-            }
-        }
-        return null;
+    private Restaurant getRestaurantForOrder(Order order, ReferenceData referenceData) {
+        MenuIndex.RestaurantMenu restaurant = referenceData.getMenuIndex().findRestaurant(order.getPizzasInOrder());
+        return restaurant == null ? null : restaurant.getRestaurant();
     }
 
     // Helper method to calculate the path
     public List<LngLat> calculatePath(LngLat start, LngLat end, List<NoFlyZone> noFlyZones, Region centralArea) {
-        PriorityQueue<Node> openSet = new PriorityQueue<>();
-        Set<Node> closedSet = new HashSet<>();
-
-        boolean startInCentralArea = isPointInPolygon(start, centralArea.getVertices());
-        Node startNode = new Node(start, null, 0, heuristic(start, end), startInCentralArea);
-        openSet.add(startNode);
-
-        while (!openSet.isEmpty()) {
-            Node currentNode = openSet.poll();
-
-            if (currentNode.getPosition().closeTo(end)) {
-                return buildPath(currentNode);
-            }
-
-            closedSet.add(currentNode);
-
-            for (double angle = 0; angle < 360; angle += 22.5) {
-                LngLat newPosition = currentNode.getPosition().nextPosition(angle);
-                boolean neighborEnteredCentralArea = currentNode.hasEnteredCentralArea();
-
-                // Check if this move would enter central area
-                if (!neighborEnteredCentralArea && isPointInPolygon(newPosition, centralArea.getVertices())) {
-                    neighborEnteredCentralArea = true;
-                }
-
-                // Check if the move is valid given the no-fly zones and central area constraints
-                if (!isValidMove(currentNode.getPosition(), newPosition, noFlyZones, centralArea, currentNode.hasEnteredCentralArea())) {
-                    continue;
-                }
-
-                Node neighbor = new Node(newPosition, currentNode, currentNode.getGCost() + 1, heuristic(newPosition, end), neighborEnteredCentralArea);
-
-                if (closedSet.contains(neighbor)) {
-                    continue;
-                }
+        return calculatePath(start, end, Airspace.compile(noFlyZones, centralArea));
+    }
 
-                Optional<Node> existingNode = openSet.stream().filter(n -> n.equals(neighbor)).findFirst();
-                if (existingNode.isPresent()) {
-                    if (existingNode.get().getGCost() > neighbor.getGCost()) {
-                        openSet.remove(existingNode.get());
-                        openSet.add(neighbor);
-                    }
-                } else {
-                    openSet.add(neighbor);
-                }
-            }
-        }
+    // Calculate the path against an already compiled airspace
+    public List<LngLat> calculatePath(LngLat start, LngLat end, Airspace airspace) {
+        return calculatePath("none", plannerAlgorithm, start, end, airspace);
+    }
 
-        return null;
+    // Plan and record the search in the planner metrics, tagged with the restaurant
+    private List<LngLat> calculatePath(String restaurant, PlannerAlgorithm algorithm, LngLat start, LngLat end, Airspace airspace) {
+        return calculatePath(restaurant, new GridPathPlanner(airspace, algorithm), start, end, new SearchStats());
     }
 
+    private List<LngLat> calculatePath(String restaurant, GridPathPlanner planner, LngLat start, LngLat end, SearchStats stats) {
+        long started = System.nanoTime();
+        List<LngLat> path = planner.plan(start, end, stats);
+        metrics.recordPlan(restaurant, planner.getAlgorithm(), stats, System.nanoTime() - started);
+        return path;
+    }
 
     // Helper method to check if a move is valid
     public boolean isValidMove(LngLat from, LngLat to, List<NoFlyZone> noFlyZones, Region centralArea, boolean enteredCentralArea) {
-        // Check if the move crosses any no-fly zones
-        for (NoFlyZone zone : noFlyZones) {
-            if (lineIntersectsPolygon(from, to, zone.getVertices())) {
-                return false;
-            }
-        }
-
-        boolean toInCentral = isPointInPolygon(to, centralArea.getVertices());
-
-        // If we have already entered central area at some point in the path, we must not leave it. If we are inside and then go outside,  it's not allowed.
-        if (enteredCentralArea && !toInCentral) {
-            return false;
-        }
-
-        // Otherwise, it's allowed. If we haven't entered yet, we can still choose to enter now.
-        return true;
+        return GridPathPlanner.isValidMove(from, to, noFlyZones, centralArea, enteredCentralArea);
     }
 
-
-
-    // Helper method to check if a line segment intersects with any polygon
-    private boolean lineIntersectsPolygon(LngLat p1, LngLat p2, List<LngLat> polygon) {
-        for (int i = 0; i < polygon.size(); i++) {
-            LngLat a = polygon.get(i);
-            LngLat b = polygon.get((i + 1) % polygon.size());
-            if (linesIntersect(p1, p2, a, b)) {
-                return true;
+    // The offered type the client prefers, going by q-value and then by how
+    // specific the accepted type is. The first offered type is the default
+    // when there is no usable Accept header or nothing offered is accepted.
+    private static MediaType negotiate(String accept, MediaType... offered) {
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return offered[0];
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed()
+                .thenComparing(MediaType::isWildcardType)
+                .thenComparing(MediaType::isWildcardSubtype));
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType candidate : offered) {
+                if (type.isCompatibleWith(candidate)) {
+                    return candidate;
+                }
             }
         }
-        return false;
-    }
-
-    // Helper method to check if two line segments intersect
-    private boolean linesIntersect(LngLat p1, LngLat p2, LngLat q1, LngLat q2) {
-        // Implement the algorithm for line segment intersection using the cross product method
-        double s1_x = p2.getLng() - p1.getLng();
-        double s1_y = p2.getLat() - p1.getLat();
-        double s2_x = q2.getLng() - q1.getLng();
-        double s2_y = q2.getLat() - q1.getLat();
-
-        double s = (-s1_y * (p1.getLng() - q1.getLng()) + s1_x * (p1.getLat() - q1.getLat())) / (-s2_x * s1_y + s1_x * s2_y);
-        double t = ( s2_x * (p1.getLat() - q1.getLat()) - s2_y * (p1.getLng() - q1.getLng())) / (-s2_x * s1_y + s1_x * s2_y);
-
-        return (s >= 0 && s <= 1 && t >= 0 && t <= 1);
-    }
-
-    //Helper method for the heuristic function
-    private double heuristic(LngLat current, LngLat goal) {
-        double distance = current.distanceTo(goal);
-        return distance / 0.00015; // Each move is 0.00015 degrees
+        return offered[0];
     }
 
-    //Helper method to retrace the path from the goal node back to the start node
-    private List<LngLat> buildPath(Node goalNode) {
-        List<LngLat> path = new ArrayList<>();
-        Node currentNode = goalNode;
+    // A planned route and the suboptimality bound to report with it, 0 for none
+    private static final class PlannedRoute {
+        private final List<LngLat> path;
+        private final double bound;
 
-        // Retrace the path
-        while (currentNode != null) {
-            path.add(currentNode.getPosition());
-            currentNode = currentNode.getParent();
+        PlannedRoute(List<LngLat> path, double bound) {
+            this.path = path;
+            this.bound = bound;
         }
 
-        // Reverse the path to start from the start position
-        Collections.reverse(path);
-
-        // Add hover at the start and end positions
-        path.add(0, path.get(0)); // Hover at the restaurant
-        path.add(path.get(path.size() - 1)); // Hover at Appleton Tower
-
-        return path;
+        ResponseEntity.BodyBuilder ok() {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (bound > 0) {
+                response.header(SUBOPTIMALITY_BOUND_HEADER, Double.toString(bound));
+            }
+            return response;
+        }
     }
-
-
-
-
 }
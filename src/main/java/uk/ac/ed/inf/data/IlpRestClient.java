@@ -0,0 +1,156 @@
+package uk.ac.ed.inf.data;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.inf.exception.UpstreamUnavailableException;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+
+// GETs documents from the ILP server over a pooled HTTP client with connect
+// and read timeouts. After failureThreshold failures in a row a circuit
+// breaker fails every call at once for openDuration, then lets a single
+// trial call through. Every failure surfaces as an
+// UpstreamUnavailableException.
+@Component
+public class IlpRestClient implements DisposableBean {
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 2000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 5000;
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_SECONDS = 30;
+
+    private final RestTemplate restTemplate;
+    private final CloseableHttpClient httpClient;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    // Circuit breaker state, guarded by this
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialInProgress;
+
+    public IlpRestClient() {
+        this(DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_READ_TIMEOUT_MILLIS, DEFAULT_MAX_CONNECTIONS,
+                DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_SECONDS);
+    }
+
+    @Autowired
+    public IlpRestClient(@Value("${ilp.rest.connect-timeout-ms:" + DEFAULT_CONNECT_TIMEOUT_MILLIS + "}") int connectTimeoutMillis,
+                         @Value("${ilp.rest.read-timeout-ms:" + DEFAULT_READ_TIMEOUT_MILLIS + "}") int readTimeoutMillis,
+                         @Value("${ilp.rest.max-connections:" + DEFAULT_MAX_CONNECTIONS + "}") int maxConnections,
+                         @Value("${ilp.rest.circuit-breaker.failure-threshold:" + DEFAULT_FAILURE_THRESHOLD + "}") int failureThreshold,
+                         @Value("${ilp.rest.circuit-breaker.open-seconds:" + DEFAULT_OPEN_SECONDS + "}") long openSeconds) {
+        this(pooledClient(connectTimeoutMillis, readTimeoutMillis, maxConnections), connectTimeoutMillis,
+                failureThreshold, Duration.ofSeconds(openSeconds), Clock.systemUTC());
+    }
+
+    // Wraps an existing RestTemplate, which brings its own timeouts
+    public IlpRestClient(RestTemplate restTemplate, int failureThreshold, Duration openDuration, Clock clock) {
+        this.restTemplate = restTemplate;
+        this.httpClient = null;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    private IlpRestClient(CloseableHttpClient httpClient, int connectTimeoutMillis, int failureThreshold, Duration openDuration, Clock clock) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        // Waiting for a pooled connection counts as connecting
+        requestFactory.setConnectionRequestTimeout(connectTimeoutMillis);
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.httpClient = httpClient;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    private static CloseableHttpClient pooledClient(int connectTimeoutMillis, int readTimeoutMillis, int maxConnections) {
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(maxConnections)
+                        .setMaxConnPerRoute(maxConnections)
+                        .setDefaultConnectionConfig(connectionConfig)
+                        .build())
+                .build();
+    }
+
+    // A GET with the given (conditional) headers. Any failure, including one
+    // from building the request or converting the response, counts against
+    // the circuit breaker.
+    public <T> ResponseEntity<T> get(String url, HttpHeaders headers, Class<T> type) {
+        if (!allowRequest()) {
+            throw new UpstreamUnavailableException("Circuit breaker open, not calling " + url);
+        }
+        boolean succeeded = false;
+        try {
+            ResponseEntity<T> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), type);
+            succeeded = true;
+            return response;
+        } catch (RuntimeException e) {
+            throw new UpstreamUnavailableException("GET " + url + " failed: " + e.getMessage(), e);
+        } finally {
+            // Also clears a half open trial when an Error escapes
+            if (succeeded) {
+                recordSuccess();
+            } else {
+                recordFailure();
+            }
+        }
+    }
+
+    // True while calls are being failed without reaching the server
+    public synchronized boolean isOpen() {
+        return consecutiveFailures >= failureThreshold && (clock.millis() < openUntil || trialInProgress);
+    }
+
+    private synchronized boolean allowRequest() {
+        if (consecutiveFailures < failureThreshold) {
+            return true;
+        }
+        if (clock.millis() < openUntil || trialInProgress) {
+            return false;
+        }
+        // Half open, this call decides whether the circuit closes again
+        trialInProgress = true;
+        return true;
+    }
+
+    private synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        trialInProgress = false;
+    }
+
+    private synchronized void recordFailure() {
+        consecutiveFailures++;
+        trialInProgress = false;
+        if (consecutiveFailures >= failureThreshold) {
+            openUntil = clock.millis() + openDuration.toMillis();
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (httpClient != null) {
+            httpClient.close();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package uk.ac.ed.inf.data;
+
+import uk.ac.ed.inf.models.Pizza;
+import uk.ac.ed.inf.models.Restaurant;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Immutable lookup tables over the restaurant menus, built once per reference
+// data snapshot so validating an order only needs a few hash lookups.
+public final class MenuIndex {
+    private static final RestaurantMenu[] NONE = new RestaurantMenu[0];
+
+    private final Map<String, RestaurantMenu[]> restaurantsByPizza;
+
+    public MenuIndex(List<Restaurant> restaurants) {
+        Map<String, List<RestaurantMenu>> byPizza = new HashMap<>();
+        for (Restaurant restaurant : restaurants) {
+            RestaurantMenu menu = new RestaurantMenu(restaurant);
+            for (String pizzaName : menu.prices.keySet()) {
+                byPizza.computeIfAbsent(pizzaName, name -> new ArrayList<>()).add(menu);
+            }
+        }
+        Map<String, RestaurantMenu[]> index = new HashMap<>();
+        byPizza.forEach((name, menus) -> index.put(name, menus.toArray(NONE)));
+        this.restaurantsByPizza = index;
+    }
+
+    // Check whether any restaurant has this pizza on its menu
+    public boolean isDefined(String pizzaName) {
+        return pizzaName != null && restaurantsByPizza.containsKey(pizzaName);
+    }
+
+    // Returns the first restaurant, in upstream order, that serves every pizza
+    // in the list, or null if there is none
+    public RestaurantMenu findRestaurant(List<Pizza> pizzas) {
+        if (pizzas.isEmpty() || pizzas.get(0).getName() == null) {
+            return null;
+        }
+        RestaurantMenu[] candidates = restaurantsByPizza.getOrDefault(pizzas.get(0).getName(), NONE);
+        for (RestaurantMenu candidate : candidates) {
+            if (candidate.servesAll(pizzas)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    // One restaurant's menu prices and opening days
+    public static final class RestaurantMenu {
+        private final Restaurant restaurant;
+        private final Map<String, Integer> prices = new HashMap<>();
+        private final Set<DayOfWeek> openingDays = EnumSet.noneOf(DayOfWeek.class);
+
+        private RestaurantMenu(Restaurant restaurant) {
+            this.restaurant = restaurant;
+            if (restaurant.getMenu() != null) {
+                for (Pizza pizza : restaurant.getMenu()) {
+                    // Keep the first entry when a menu lists a pizza twice
+                    prices.putIfAbsent(pizza.getName(), pizza.getPriceInPence());
+                }
+            }
+            if (restaurant.getOpeningDays() != null) {
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    if (restaurant.getOpeningDays().contains(day.name())) {
+                        openingDays.add(day);
+                    }
+                }
+            }
+        }
+
+        public Restaurant getRestaurant() { return restaurant; }
+
+        public boolean isOpenOn(DayOfWeek day) {
+            return openingDays.contains(day);
+        }
+
+        // Check the ordered price matches the menu price
+        public boolean hasPrice(Pizza pizza) {
+            Integer price = prices.get(pizza.getName());
+            return price != null && price == pizza.getPriceInPence();
+        }
+
+        private boolean servesAll(List<Pizza> pizzas) {
+            for (int i = 0; i < pizzas.size(); i++) {
+                if (!prices.containsKey(pizzas.get(i).getName())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package uk.ac.ed.inf.data;
+
+import uk.ac.ed.inf.models.NoFlyZone;
+import uk.ac.ed.inf.models.Region;
+import uk.ac.ed.inf.models.Restaurant;
+import uk.ac.ed.inf.pathfinding.Airspace;
+import java.time.Instant;
+import java.util.List;
+
+// Immutable snapshot of the ILP reference data. A request reads one snapshot
+// and uses it throughout, so a refresh half way through never mixes versions.
+public final class ReferenceData {
+    private final List<Restaurant> restaurants;
+    private final List<NoFlyZone> noFlyZones;
+    private final Region centralArea;
+    private final MenuIndex menuIndex;
+    private final Airspace airspace;
+    private final long version;
+    private final Instant fetchedAt;
+
+    public ReferenceData(List<Restaurant> restaurants, List<NoFlyZone> noFlyZones, Region centralArea, long version, Instant fetchedAt) {
+        this(restaurants, noFlyZones, centralArea, Airspace.compile(noFlyZones, centralArea), version, fetchedAt);
+    }
+
+    // The airspace must have been compiled from the given zones and central area
+    public ReferenceData(List<Restaurant> restaurants, List<NoFlyZone> noFlyZones, Region centralArea, Airspace airspace, long version, Instant fetchedAt) {
+        this.restaurants = List.copyOf(restaurants);
+        this.noFlyZones = List.copyOf(noFlyZones);
+        this.centralArea = centralArea;
+        this.menuIndex = new MenuIndex(this.restaurants);
+        this.airspace = airspace;
+        this.version = version;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public static ReferenceData empty() {
+        return new ReferenceData(List.of(), List.of(), null, 0, Instant.EPOCH);
+    }
+
+    public List<Restaurant> getRestaurants() { return restaurants; }
+    public List<NoFlyZone> getNoFlyZones() { return noFlyZones; }
+    public Region getCentralArea() { return centralArea; }
+    public MenuIndex getMenuIndex() { return menuIndex; }
+    public Airspace getAirspace() { return airspace; }
+    public long getVersion() { return version; }
+    public Instant getFetchedAt() { return fetchedAt; }
+}
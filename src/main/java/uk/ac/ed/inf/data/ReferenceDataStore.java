@@ -0,0 +1,325 @@
+package uk.ac.ed.inf.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.inf.exception.UpstreamUnavailableException;
+import uk.ac.ed.inf.metrics.IlpMetrics;
+import uk.ac.ed.inf.models.NoFlyZone;
+import uk.ac.ed.inf.models.Region;
+import uk.ac.ed.inf.models.Restaurant;
+import uk.ac.ed.inf.pathfinding.Airspace;
+import uk.ac.ed.inf.pathfinding.OccupancyRasterizer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Keeps the restaurants, no-fly zones and central area from the ILP server in
+// memory. Requests read the current snapshot without any I/O; the snapshot is
+// revalidated in the background every ttl using ETag / If-Modified-Since, and
+// if the server is unreachable the last snapshot keeps being served. Until a
+// complete snapshot has been loaded once, requests fail with an
+// UpstreamUnavailableException instead of seeing empty data.
+@Component
+public class ReferenceDataStore implements DisposableBean {
+    public static final String DEFAULT_BASE_URL = "https://ilp-rest-2024.azurewebsites.net";
+    public static final long DEFAULT_TTL_SECONDS = 300;
+
+    // How soon to retry when some of the data has never been fetched
+    private static final long RETRY_DELAY_MILLIS = 5000;
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataStore.class);
+
+    private final Duration ttl;
+    private final Clock clock;
+    private final ScheduledExecutorService refresher;
+    private final IlpRestClient client;
+
+    private final Resource<Restaurant[]> restaurants;
+    private final Resource<NoFlyZone[]> noFlyZones;
+    private final Resource<Region> centralArea;
+
+    private final AtomicReference<ReferenceData> snapshot = new AtomicReference<>();
+    // A lock rather than synchronized, so virtual threads waiting for the
+    // first fetch do not pin their carrier threads
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private volatile long nextRefreshAt;
+    private OccupancyRasterizer rasterizer;
+    private volatile IlpMetrics metrics;
+    private final List<Consumer<ReferenceData>> listeners = new CopyOnWriteArrayList<>();
+
+    public ReferenceDataStore() {
+        this(DEFAULT_BASE_URL, DEFAULT_TTL_SECONDS);
+    }
+
+    public ReferenceDataStore(String baseUrl, long ttlSeconds) {
+        this(new IlpRestClient(), baseUrl, ttlSeconds);
+    }
+
+    @Autowired
+    public ReferenceDataStore(IlpRestClient client,
+                              @Value("${ilp.rest.base-url:" + DEFAULT_BASE_URL + "}") String baseUrl,
+                              @Value("${ilp.reference-data.ttl-seconds:" + DEFAULT_TTL_SECONDS + "}") long ttlSeconds) {
+        this(baseUrl, Duration.ofSeconds(ttlSeconds), client, Clock.systemUTC());
+    }
+
+    public ReferenceDataStore(String baseUrl, Duration ttl, RestTemplate restTemplate, Clock clock) {
+        this(baseUrl, ttl, new IlpRestClient(restTemplate, IlpRestClient.DEFAULT_FAILURE_THRESHOLD,
+                Duration.ofSeconds(IlpRestClient.DEFAULT_OPEN_SECONDS), clock), clock);
+    }
+
+    public ReferenceDataStore(String baseUrl, Duration ttl, IlpRestClient client, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+        this.client = client;
+        this.restaurants = new Resource<>(client, baseUrl, "restaurants", Restaurant[].class);
+        this.noFlyZones = new Resource<>(client, baseUrl, "noFlyZones", NoFlyZone[].class);
+        this.centralArea = new Resource<>(client, baseUrl, "centralArea", Region.class);
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reference-data-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Only present when ilp.planner.raster.enabled is set
+    @Autowired(required = false)
+    public void setRasterizer(OccupancyRasterizer rasterizer) {
+        lock.lock();
+        try {
+            this.rasterizer = rasterizer;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Autowired(required = false)
+    public void setMetrics(IlpMetrics metrics) {
+        this.metrics = metrics;
+        metrics.gauge("ilp.reference-data.version", snapshot, current -> current.get() == null ? 0 : current.get().getVersion());
+        metrics.gauge("ilp.upstream.circuit.open", client, c -> c.isOpen() ? 1 : 0);
+    }
+
+    // Called with every newly published snapshot on the refreshing thread,
+    // listeners must hand any slow work off to another thread
+    public void addListener(Consumer<ReferenceData> listener) {
+        listeners.add(listener);
+    }
+
+    // Returns the current snapshot. Only the very first call waits for the
+    // upstream fetch, after that a stale snapshot triggers a background
+    // revalidation and is returned as is. Concurrent first calls share one
+    // fetch, and throw UpstreamUnavailableException if it is incomplete.
+    public ReferenceData current() {
+        ReferenceData data = snapshot.get();
+        if (data == null) {
+            return initialLoad();
+        }
+        if (clock.millis() >= nextRefreshAt && refreshQueued.compareAndSet(false, true)) {
+            refresher.execute(this::backgroundRefresh);
+        }
+        return data;
+    }
+
+    // The current snapshot, looked up on the first get() and the same one
+    // from then on, so a request that may not need reference data at all does
+    // not fail while the server is unavailable, and one that does sees a
+    // single snapshot throughout.
+    public Supplier<ReferenceData> lazyCurrent() {
+        AtomicReference<ReferenceData> resolved = new AtomicReference<>();
+        return () -> {
+            ReferenceData data = resolved.get();
+            if (data == null) {
+                resolved.compareAndSet(null, current());
+                data = resolved.get();
+            }
+            return data;
+        };
+    }
+
+    private ReferenceData initialLoad() {
+        lock.lock();
+        try {
+            ReferenceData data = snapshot.get();
+            if (data != null) {
+                return data;
+            }
+            data = refresh();
+            if (data == null) {
+                throw new UpstreamUnavailableException("No reference data loaded yet, the ILP server is unavailable");
+            }
+            scheduleRefresh();
+            return data;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Starts serving a snapshot loaded from disk without waiting for the
+    // server. It is revalidated in the background on the next request, and
+    // whatever the server cannot provide keeps coming from the seed.
+    public boolean seed(ReferenceData seeded) {
+        lock.lock();
+        try {
+            if (snapshot.get() != null) {
+                return false;
+            }
+            restaurants.value = seeded.getRestaurants().toArray(new Restaurant[0]);
+            noFlyZones.value = seeded.getNoFlyZones().toArray(new NoFlyZone[0]);
+            centralArea.value = seeded.getCentralArea();
+            ReferenceData data = build(seeded.getVersion(), seeded.getFetchedAt());
+            snapshot.set(data);
+            notifyListeners(data);
+            nextRefreshAt = 0;
+            scheduleRefresh();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scheduleRefresh() {
+        long period = ttl.toMillis();
+        refresher.scheduleWithFixedDelay(this::backgroundRefresh, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void backgroundRefresh() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Reference data refresh failed", e);
+        } finally {
+            refreshQueued.set(false);
+        }
+    }
+
+    // Revalidates every resource against the server and publishes a new
+    // snapshot if any of them changed. The first snapshot is only published
+    // once every resource has been fetched; null until then.
+    public ReferenceData refresh() {
+        lock.lock();
+        try {
+            boolean changed = revalidate(restaurants);
+            changed |= revalidate(noFlyZones);
+            changed |= revalidate(centralArea);
+
+            boolean complete = restaurants.value != null && noFlyZones.value != null && centralArea.value != null;
+            ReferenceData previous = snapshot.get();
+            if (previous == null ? complete : changed) {
+                long version = previous == null ? 1 : previous.getVersion() + 1;
+                ReferenceData published = build(version, clock.instant());
+                snapshot.set(published);
+                notifyListeners(published);
+            }
+            nextRefreshAt = clock.millis() + (complete ? ttl.toMillis() : Math.min(ttl.toMillis(), RETRY_DELAY_MILLIS));
+            return snapshot.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean revalidate(Resource<?> resource) {
+        long started = System.nanoTime();
+        String outcome = resource.revalidate();
+        IlpMetrics m = metrics;
+        if (m != null) {
+            m.recordUpstreamFetch(resource.name, outcome, System.nanoTime() - started);
+        }
+        return Resource.MODIFIED.equals(outcome);
+    }
+
+    private ReferenceData build(long version, Instant fetchedAt) {
+        List<NoFlyZone> zones = asList(noFlyZones.value);
+        Airspace airspace = Airspace.compile(zones, centralArea.value);
+        if (rasterizer != null) {
+            airspace = airspace.withRaster(rasterizer.rasterize(zones, centralArea.value));
+        }
+        return new ReferenceData(asList(restaurants.value), zones, centralArea.value, airspace, version, fetchedAt);
+    }
+
+    private void notifyListeners(ReferenceData published) {
+        for (Consumer<ReferenceData> listener : listeners) {
+            try {
+                listener.accept(published);
+            } catch (RuntimeException e) {
+                logger.warn("Reference data listener failed", e);
+            }
+        }
+    }
+
+    private static <T> List<T> asList(T[] values) {
+        return values == null ? List.of() : Arrays.asList(values);
+    }
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    // One upstream document together with the validators needed to revalidate it
+    private static final class Resource<T> {
+        static final String MODIFIED = "modified";
+        static final String NOT_MODIFIED = "not_modified";
+        static final String ERROR = "error";
+
+        private final IlpRestClient client;
+        private final String name;
+        private final String url;
+        private final Class<T> type;
+
+        private T value;
+        private String etag;
+        private long lastModified = -1;
+
+        Resource(IlpRestClient client, String baseUrl, String name, Class<T> type) {
+            this.client = client;
+            this.name = name;
+            this.url = baseUrl + "/" + name;
+            this.type = type;
+        }
+
+        // Returns MODIFIED if a new value was received
+        String revalidate() {
+            HttpHeaders headers = new HttpHeaders();
+            if (value != null && etag != null) {
+                headers.setIfNoneMatch(etag);
+            }
+            if (value != null && lastModified >= 0) {
+                headers.setIfModifiedSince(lastModified);
+            }
+            try {
+                ResponseEntity<T> response = client.get(url, headers, type);
+                if (response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value() || response.getBody() == null) {
+                    return NOT_MODIFIED;
+                }
+                value = response.getBody();
+                etag = response.getHeaders().getETag();
+                lastModified = response.getHeaders().getLastModified();
+                return MODIFIED;
+            } catch (UpstreamUnavailableException e) {
+                // Keep serving whatever we had before
+                logger.warn("Could not fetch {}, serving {} data: {}", url, value == null ? "empty" : "stale", e.getMessage());
+                return ERROR;
+            }
+        }
+    }
+}
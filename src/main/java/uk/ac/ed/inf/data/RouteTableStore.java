@@ -0,0 +1,134 @@
+package uk.ac.ed.inf.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.inf.batch.BatchExecutor;
+import uk.ac.ed.inf.models.DeliveryConstants;
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.models.Restaurant;
+import uk.ac.ed.inf.pathfinding.Airspace;
+import uk.ac.ed.inf.pathfinding.GridPathPlanner;
+import uk.ac.ed.inf.pathfinding.RouteTable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Plans every restaurant to Appleton Tower route whenever a new reference
+// data snapshot is published, so delivery path requests for known
+// restaurants are a table lookup. Snapshot and table can be written to a
+// SnapshotFile, which is mapped on startup so a new instance serves both
+// before contacting the ILP server or running the planner. A table planned
+// against other zones is never served.
+@Component
+public class RouteTableStore implements InitializingBean {
+    private static final Logger logger = LoggerFactory.getLogger(RouteTableStore.class);
+
+    private final ReferenceDataStore referenceDataStore;
+    private final BatchExecutor batchExecutor;
+    private final boolean enabled;
+    private final Path file;
+
+    private final AtomicReference<RouteTable> table = new AtomicReference<>();
+
+    // A store that never precomputes anything, every lookup misses
+    public RouteTableStore() {
+        this(null, null, false, "");
+    }
+
+    @Autowired
+    public RouteTableStore(ReferenceDataStore referenceDataStore, BatchExecutor batchExecutor,
+                           @Value("${ilp.route-table.enabled:true}") boolean enabled,
+                           @Value("${ilp.snapshot.file:}") String file) {
+        this.referenceDataStore = referenceDataStore;
+        this.batchExecutor = batchExecutor;
+        this.enabled = enabled;
+        this.file = file.isBlank() ? null : Path.of(file);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        if (file != null && Files.isReadable(file)) {
+            try {
+                SnapshotFile snapshotFile = SnapshotFile.read(file);
+                table.set(snapshotFile.getRouteTable());
+                referenceDataStore.seed(snapshotFile.getReferenceData());
+                logger.info("Loaded reference data version {} and {} precomputed routes from {}",
+                        snapshotFile.getReferenceData().getVersion(),
+                        snapshotFile.getRouteTable() == null ? 0 : snapshotFile.getRouteTable().size(), file);
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable snapshot file {}: {}", file, e.getMessage());
+            }
+        }
+        referenceDataStore.addListener(this::onSnapshot);
+        // Fetch the reference data now rather than on the first request
+        batchExecutor.submit(referenceDataStore::current);
+    }
+
+    // The precomputed route, or null if it has to be planned
+    public List<LngLat> lookup(LngLat start, LngLat end, Airspace airspace) {
+        RouteTable current = table.get();
+        return current == null ? null : current.lookup(start, end, airspace);
+    }
+
+    private void onSnapshot(ReferenceData referenceData) {
+        if (!referenceData.getAirspace().hasCentralArea()) {
+            return;
+        }
+        RouteTable current = table.get();
+        boolean upToDate = current != null && current.getAirspaceHash() == referenceData.getAirspace().getContentHash()
+                && referenceData.getRestaurants().stream().allMatch(r -> current.covers(r.getLocation()));
+        batchExecutor.submit(() -> {
+            publish(referenceData, upToDate ? current : build(referenceData, batchExecutor));
+            return null;
+        });
+    }
+
+    private void publish(ReferenceData referenceData, RouteTable built) {
+        if (table.getAndSet(built) != built) {
+            logger.info("Precomputed {} routes", built.size());
+        }
+        if (file == null) {
+            return;
+        }
+        try {
+            SnapshotFile.write(file, referenceData, built);
+        } catch (IOException e) {
+            logger.warn("Could not write snapshot file {}: {}", file, e.getMessage());
+        }
+    }
+
+    // Plans the route of every restaurant in parallel with the usual A* rules
+    static RouteTable build(ReferenceData referenceData, BatchExecutor batchExecutor) {
+        Airspace airspace = referenceData.getAirspace();
+        GridPathPlanner planner = new GridPathPlanner(airspace);
+        List<LngLat> starts = new ArrayList<>();
+        List<ForkJoinTask<List<LngLat>>> planned = new ArrayList<>();
+        for (Restaurant restaurant : referenceData.getRestaurants()) {
+            LngLat start = restaurant.getLocation();
+            starts.add(start);
+            planned.add(batchExecutor.submit(() -> planner.plan(start, DeliveryConstants.APPLETON_TOWER)));
+        }
+
+        List<LngLat> reachable = new ArrayList<>();
+        List<List<LngLat>> routes = new ArrayList<>();
+        for (int i = 0; i < starts.size(); i++) {
+            List<LngLat> route = planned.get(i).join();
+            if (route != null) {
+                reachable.add(starts.get(i));
+                routes.add(route);
+            }
+        }
+        return new RouteTable(airspace.getContentHash(), DeliveryConstants.APPLETON_TOWER, reachable, routes);
+    }
+}
@@ -0,0 +1,240 @@
+package uk.ac.ed.inf.data;
+
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.models.NoFlyZone;
+import uk.ac.ed.inf.models.Pizza;
+import uk.ac.ed.inf.models.Region;
+import uk.ac.ed.inf.models.Restaurant;
+import uk.ac.ed.inf.pathfinding.RouteTable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+// Versioned binary file holding a reference data snapshot and its route
+// table. Coordinates are stored as packed big endian doubles and read
+// straight out of a memory mapped buffer, so loading needs no JSON parsing
+// and instances on one host share the file through the page cache.
+//
+// Layout: header (magic, format version, snapshot version, fetched at),
+// restaurants (name, location, opening days, menu), no-fly zones (name,
+// vertices), central area (present flag, name, vertices) and routes (present
+// flag, airspace hash, destination, then per route its point count and
+// points). Strings are an int byte length followed by UTF-8.
+public final class SnapshotFile {
+    private static final int MAGIC = 0x494C5053; // "ILPS"
+    public static final int FORMAT_VERSION = 1;
+
+    private final ReferenceData referenceData;
+    private final RouteTable routeTable;
+
+    private SnapshotFile(ReferenceData referenceData, RouteTable routeTable) {
+        this.referenceData = referenceData;
+        this.routeTable = routeTable;
+    }
+
+    public ReferenceData getReferenceData() { return referenceData; }
+
+    // Null if the file was written without routes
+    public RouteTable getRouteTable() { return routeTable; }
+
+    // Writes to a temporary file next to path and moves it into place, so a
+    // reader never maps half a file
+    public static void write(Path path, ReferenceData referenceData, RouteTable routeTable) throws IOException {
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "snapshot", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(referenceData.getVersion());
+            out.writeLong(referenceData.getFetchedAt().toEpochMilli());
+
+            out.writeInt(referenceData.getRestaurants().size());
+            for (Restaurant restaurant : referenceData.getRestaurants()) {
+                writeString(out, restaurant.getName());
+                writePoint(out, restaurant.getLocation());
+                List<String> days = restaurant.getOpeningDays() == null ? List.of() : restaurant.getOpeningDays();
+                out.writeInt(days.size());
+                for (String day : days) {
+                    writeString(out, day);
+                }
+                List<Pizza> menu = restaurant.getMenu() == null ? List.of() : restaurant.getMenu();
+                out.writeInt(menu.size());
+                for (Pizza pizza : menu) {
+                    writeString(out, pizza.getName());
+                    out.writeInt(pizza.getPriceInPence());
+                }
+            }
+
+            out.writeInt(referenceData.getNoFlyZones().size());
+            for (NoFlyZone zone : referenceData.getNoFlyZones()) {
+                writeString(out, zone.getName());
+                writePoints(out, zone.getVertices());
+            }
+
+            Region centralArea = referenceData.getCentralArea();
+            out.writeBoolean(centralArea != null);
+            if (centralArea != null) {
+                writeString(out, centralArea.getName());
+                writePoints(out, centralArea.getVertices());
+            }
+
+            out.writeBoolean(routeTable != null);
+            if (routeTable != null) {
+                out.writeLong(routeTable.getAirspaceHash());
+                writePoint(out, routeTable.getDestination());
+                out.writeInt(routeTable.size());
+                for (List<LngLat> route : routeTable.getRoutes()) {
+                    writePoints(out, route);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Maps the file read only. Vertices and route points stay in the mapping
+    // and are only turned into LngLat objects when read.
+    public static SnapshotFile read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format version " + formatVersion + " in " + path);
+            }
+            long version = buffer.getLong();
+            Instant fetchedAt = Instant.ofEpochMilli(buffer.getLong());
+
+            List<Restaurant> restaurants = new ArrayList<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                Restaurant restaurant = new Restaurant();
+                restaurant.setName(readString(buffer));
+                restaurant.setLocation(new LngLat(buffer.getDouble(), buffer.getDouble()));
+                List<String> days = new ArrayList<>();
+                for (int d = buffer.getInt(); d > 0; d--) {
+                    days.add(readString(buffer));
+                }
+                restaurant.setOpeningDays(days);
+                List<Pizza> menu = new ArrayList<>();
+                for (int p = buffer.getInt(); p > 0; p--) {
+                    menu.add(new Pizza(readString(buffer), buffer.getInt()));
+                }
+                restaurant.setMenu(menu);
+                restaurants.add(restaurant);
+            }
+
+            List<NoFlyZone> noFlyZones = new ArrayList<>();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                NoFlyZone zone = new NoFlyZone();
+                zone.setName(readString(buffer));
+                zone.setVertices(readPoints(buffer));
+                noFlyZones.add(zone);
+            }
+
+            Region centralArea = null;
+            if (buffer.get() != 0) {
+                centralArea = new Region();
+                centralArea.setName(readString(buffer));
+                centralArea.setVertices(readPoints(buffer));
+            }
+
+            RouteTable routeTable = null;
+            if (buffer.get() != 0) {
+                long airspaceHash = buffer.getLong();
+                LngLat destination = new LngLat(buffer.getDouble(), buffer.getDouble());
+                List<LngLat> starts = new ArrayList<>();
+                List<List<LngLat>> routes = new ArrayList<>();
+                for (int i = buffer.getInt(); i > 0; i--) {
+                    List<LngLat> route = readPoints(buffer);
+                    starts.add(route.get(0));
+                    routes.add(route);
+                }
+                routeTable = new RouteTable(airspaceHash, destination, starts, routes);
+            }
+
+            ReferenceData referenceData = new ReferenceData(restaurants, noFlyZones, centralArea, version, fetchedAt);
+            return new SnapshotFile(referenceData, routeTable);
+        } catch (RuntimeException e) {
+            // Truncated or corrupt file
+            throw new IOException("Could not read snapshot file " + path + ": " + e, e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writePoint(DataOutputStream out, LngLat point) throws IOException {
+        out.writeDouble(point.getLng());
+        out.writeDouble(point.getLat());
+    }
+
+    private static void writePoints(DataOutputStream out, List<LngLat> points) throws IOException {
+        out.writeInt(points.size());
+        for (LngLat point : points) {
+            writePoint(out, point);
+        }
+    }
+
+    private static List<LngLat> readPoints(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        PackedPoints points = new PackedPoints(buffer, buffer.position(), size);
+        buffer.position(buffer.position() + size * 2 * Double.BYTES);
+        return points;
+    }
+
+    // Read only list view over lng, lat pairs in the mapped file
+    private static final class PackedPoints extends AbstractList<LngLat> {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int size;
+
+        PackedPoints(ByteBuffer buffer, int offset, int size) {
+            if (offset + size * 2L * Double.BYTES > buffer.limit()) {
+                throw new IndexOutOfBoundsException("Point list runs past the end of the file");
+            }
+            this.buffer = buffer;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public LngLat get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int at = offset + index * 2 * Double.BYTES;
+            return new LngLat(buffer.getDouble(at), buffer.getDouble(at + Double.BYTES));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
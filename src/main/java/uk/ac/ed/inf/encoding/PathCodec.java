@@ -0,0 +1,164 @@
+package uk.ac.ed.inf.encoding;
+
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.pathfinding.GridPathPlanner;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compact binary encodings of a path, negotiated on /calcDeliveryPath.
+//
+// Delta-varint: 'D', version, point count, then every coordinate as a fixed
+// point integer of 1e-9 degrees, the first point absolute and every later one
+// as the difference to the previous, each zigzag varint encoded. A move is
+// three bytes per axis; decoded positions are within 5e-10 degrees.
+//
+// Angles: 'A', version, point count, the first point as two doubles, then one
+// byte per step: the direction index 0-15 of the move, HOVER for a repeated
+// point, or ESCAPE followed by the next point as two doubles. Decoding replays
+// LngLat.nextPosition, so it reproduces planner paths exactly.
+public final class PathCodec {
+    public static final String DELTA_VARINT_VALUE = "application/vnd.ilp.path.delta-varint";
+    public static final String ANGLES_VALUE = "application/vnd.ilp.path.angles";
+
+    private static final byte DELTA_VARINT = 'D';
+    private static final byte ANGLES = 'A';
+    private static final byte VERSION = 1;
+
+    private static final double FIXED_POINT_SCALE = 1e9;
+    private static final int HOVER = 16;
+    private static final int ESCAPE = 255;
+
+    private PathCodec() {}
+
+    public static byte[] encodeDeltaVarint(List<LngLat> path) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + path.size() * 6);
+        out.write(DELTA_VARINT);
+        out.write(VERSION);
+        writeVarint(out, path.size());
+        long lastLng = 0;
+        long lastLat = 0;
+        for (LngLat point : path) {
+            long lng = Math.round(point.getLng() * FIXED_POINT_SCALE);
+            long lat = Math.round(point.getLat() * FIXED_POINT_SCALE);
+            writeVarint(out, zigzag(lng - lastLng));
+            writeVarint(out, zigzag(lat - lastLat));
+            lastLng = lng;
+            lastLat = lat;
+        }
+        return out.toByteArray();
+    }
+
+    public static List<LngLat> decodeDeltaVarint(byte[] encoded) {
+        ByteBuffer in = ByteBuffer.wrap(encoded);
+        checkHeader(in, DELTA_VARINT);
+        int size = (int) readVarint(in);
+        List<LngLat> path = new ArrayList<>(size);
+        long lng = 0;
+        long lat = 0;
+        for (int i = 0; i < size; i++) {
+            lng += unzigzag(readVarint(in));
+            lat += unzigzag(readVarint(in));
+            path.add(new LngLat(lng / FIXED_POINT_SCALE, lat / FIXED_POINT_SCALE));
+        }
+        return path;
+    }
+
+    public static byte[] encodeAngles(List<LngLat> path) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(24 + path.size());
+        out.write(ANGLES);
+        out.write(VERSION);
+        writeVarint(out, path.size());
+        if (path.isEmpty()) {
+            return out.toByteArray();
+        }
+        writeDoubles(out, path.get(0));
+        for (int i = 1; i < path.size(); i++) {
+            LngLat from = path.get(i - 1);
+            LngLat to = path.get(i);
+            int direction = directionOf(from, to);
+            out.write(direction);
+            if (direction == ESCAPE) {
+                writeDoubles(out, to);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static List<LngLat> decodeAngles(byte[] encoded) {
+        ByteBuffer in = ByteBuffer.wrap(encoded);
+        checkHeader(in, ANGLES);
+        int size = (int) readVarint(in);
+        List<LngLat> path = new ArrayList<>(size);
+        if (size == 0) {
+            return path;
+        }
+        LngLat current = new LngLat(in.getDouble(), in.getDouble());
+        path.add(current);
+        for (int i = 1; i < size; i++) {
+            int step = in.get() & 0xFF;
+            if (step == ESCAPE) {
+                current = new LngLat(in.getDouble(), in.getDouble());
+            } else if (step != HOVER) {
+                current = current.nextPosition(step * GridPathPlanner.ANGLE_STEP);
+            }
+            path.add(current);
+        }
+        return path;
+    }
+
+    // The move from one point to the next, if it is exactly a hover or one
+    // of the 16 compass moves, ESCAPE otherwise
+    private static int directionOf(LngLat from, LngLat to) {
+        if (from.getLng() == to.getLng() && from.getLat() == to.getLat()) {
+            return HOVER;
+        }
+        for (int direction = 0; direction < GridPathPlanner.DIRECTIONS; direction++) {
+            LngLat next = from.nextPosition(direction * GridPathPlanner.ANGLE_STEP);
+            if (next.getLng() == to.getLng() && next.getLat() == to.getLat()) {
+                return direction;
+            }
+        }
+        return ESCAPE;
+    }
+
+    private static void checkHeader(ByteBuffer in, byte format) {
+        if (in.remaining() < 2 || in.get() != format || in.get() != VERSION) {
+            throw new IllegalArgumentException("Unsupported path encoding");
+        }
+    }
+
+    private static void writeDoubles(ByteArrayOutputStream out, LngLat point) {
+        byte[] bytes = ByteBuffer.allocate(2 * Double.BYTES).putDouble(point.getLng()).putDouble(point.getLat()).array();
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,14 @@
+package uk.ac.ed.inf.exception;
+
+// The ILP server could not be reached, answered with an error or is being
+// skipped while its circuit breaker is open. Reported as 503 rather than
+// as a bad request, so clients can tell it apart from an invalid order.
+public class UpstreamUnavailableException extends RuntimeException {
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+
+    public UpstreamUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
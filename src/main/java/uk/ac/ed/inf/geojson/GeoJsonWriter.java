@@ -0,0 +1,91 @@
+package uk.ac.ed.inf.geojson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import uk.ac.ed.inf.models.LngLat;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+// Writes delivery paths as GeoJSON straight from the coordinates to a
+// JsonGenerator, without building maps or boxed coordinate pairs first.
+// An instance streams a FeatureCollection one feature at a time; the static
+// writeFeature is also used to serialize a single PathFeature. The collection
+// is only closed by finish(), so a stream cut short by a failure does not
+// read as a complete one.
+public class GeoJsonWriter implements Closeable {
+    private static final int FLUSH_EVERY = 64;
+
+    private final JsonGenerator generator;
+    private int written;
+    private boolean finished;
+
+    public GeoJsonWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        // The caller owns the stream, e.g. the servlet response
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        generator.writeStringField("type", "FeatureCollection");
+        generator.writeArrayFieldStart("features");
+    }
+
+    public void write(PathFeature feature) throws IOException {
+        writeFeature(generator, feature);
+        if (++written % FLUSH_EVERY == 0) {
+            generator.flush();
+        }
+    }
+
+    // Call once every feature has been written
+    public void finish() throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            // Flush what was written, but leave the collection open
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        }
+        generator.close();
+    }
+
+    // A Feature with a LineString geometry, leaving out the hover at either
+    // end of the path
+    public static void writeFeature(JsonGenerator generator, PathFeature feature) throws IOException {
+        List<LngLat> path = feature.getPath();
+        int from = 0;
+        int to = path.size();
+        if (to - from > 1 && path.get(from).closeTo(path.get(from + 1))) {
+            from++;
+        }
+        if (to - from > 1 && path.get(to - 1).closeTo(path.get(to - 2))) {
+            to--;
+        }
+
+        generator.writeStartObject();
+        generator.writeStringField("type", "Feature");
+        generator.writeObjectFieldStart("geometry");
+        generator.writeStringField("type", "LineString");
+        generator.writeArrayFieldStart("coordinates");
+        for (int i = from; i < to; i++) {
+            LngLat point = path.get(i);
+            generator.writeStartArray();
+            generator.writeNumber(point.getLng());
+            generator.writeNumber(point.getLat());
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeObjectFieldStart("properties");
+        generator.writeStringField("name", feature.getName());
+        if (feature.getOrderNo() != null) {
+            generator.writeStringField("orderNo", feature.getOrderNo());
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+}
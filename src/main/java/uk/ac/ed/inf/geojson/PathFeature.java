@@ -0,0 +1,39 @@
+package uk.ac.ed.inf.geojson;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import uk.ac.ed.inf.models.LngLat;
+import java.io.IOException;
+import java.util.List;
+
+// A delivery path to be rendered as a GeoJSON Feature. Serializing it writes
+// the coordinates directly through GeoJsonWriter.
+@JsonSerialize(using = PathFeature.Serializer.class)
+public class PathFeature {
+    private final String name;
+    private final String orderNo;
+    private final List<LngLat> path;
+
+    public PathFeature(String name, String orderNo, List<LngLat> path) {
+        this.name = name;
+        this.orderNo = orderNo;
+        this.path = path;
+    }
+
+    public String getName() { return name; }
+    public String getOrderNo() { return orderNo; }
+    public List<LngLat> getPath() { return path; }
+
+    public static class Serializer extends StdSerializer<PathFeature> {
+        public Serializer() {
+            super(PathFeature.class);
+        }
+
+        @Override
+        public void serialize(PathFeature feature, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            GeoJsonWriter.writeFeature(generator, feature);
+        }
+    }
+}
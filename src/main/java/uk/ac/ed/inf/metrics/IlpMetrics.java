@@ -0,0 +1,94 @@
+package uk.ac.ed.inf.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.inf.models.OrderValidationCode;
+import uk.ac.ed.inf.pathfinding.PlannerAlgorithm;
+import uk.ac.ed.inf.pathfinding.SearchStats;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+// Micrometer meters for the planner, order validation and upstream fetches,
+// scraped from /actuator/prometheus. Meter names:
+//   ilp.planner.duration             timer, tags restaurant, algorithm and outcome (found / not_found)
+//   ilp.planner.nodes.expanded       summary, tags restaurant and algorithm
+//   ilp.planner.open.peak            summary, tags restaurant and algorithm
+//   ilp.planner.path.length          summary, tags restaurant and algorithm
+//   ilp.planner.rejected             counter, tags restaurant, algorithm and rule (no_fly_zone / central_area)
+//   ilp.validation                   timer, tag code
+//   ilp.upstream.fetch               timer, tags resource and outcome (modified / not_modified / error)
+//   ilp.pipeline.duration            timer, tag stage (validate / plan / write), its rate is the stage throughput
+//   ilp.pipeline.blocked             timer, tag stage, time spent waiting for a free slot in the stage
+//   ilp.pipeline.queue.depth         gauge, tag stage, items waiting for a worker of the stage
+//   ilp.pipeline.in.flight           gauge, items read but not yet written
+@Component
+public class IlpMetrics {
+    private final MeterRegistry registry;
+
+    // Validation runs for every order, so its timers are looked up once
+    private final EnumMap<OrderValidationCode, Timer> validationTimers = new EnumMap<>(OrderValidationCode.class);
+
+    // Keeps meters in memory only, for use outside Spring
+    public IlpMetrics() {
+        this(new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public IlpMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (OrderValidationCode code : OrderValidationCode.values()) {
+            validationTimers.put(code, registry.timer("ilp.validation", "code", code.name()));
+        }
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    public void recordValidation(OrderValidationCode code, long nanos) {
+        validationTimers.get(code).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPlan(String restaurant, PlannerAlgorithm algorithm, SearchStats stats, long nanos) {
+        String name = algorithm.name().toLowerCase(Locale.ROOT);
+        String outcome = stats.getPathLength() > 0 ? "found" : "not_found";
+        registry.timer("ilp.planner.duration", "restaurant", restaurant, "algorithm", name, "outcome", outcome)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        registry.summary("ilp.planner.nodes.expanded", "restaurant", restaurant, "algorithm", name).record(stats.getNodesExpanded());
+        registry.summary("ilp.planner.open.peak", "restaurant", restaurant, "algorithm", name).record(stats.getOpenSetPeak());
+        if (stats.getPathLength() > 0) {
+            registry.summary("ilp.planner.path.length", "restaurant", restaurant, "algorithm", name).record(stats.getPathLength());
+        }
+        registry.counter("ilp.planner.rejected", "restaurant", restaurant, "algorithm", name, "rule", "no_fly_zone")
+                .increment(stats.getRejectedByNoFlyZone());
+        registry.counter("ilp.planner.rejected", "restaurant", restaurant, "algorithm", name, "rule", "central_area")
+                .increment(stats.getRejectedByCentralArea());
+    }
+
+    public void recordUpstreamFetch(String resource, String outcome, long nanos) {
+        registry.timer("ilp.upstream.fetch", "resource", resource, "outcome", outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPipelineStage(String stage, long nanos) {
+        registry.timer("ilp.pipeline.duration", "stage", stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPipelineBlocked(String stage, long nanos) {
+        registry.timer("ilp.pipeline.blocked", "stage", stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public <T> void gauge(String name, T source, ToDoubleFunction<T> value) {
+        registry.gauge(name, source, value);
+    }
+
+    // Tags are given as key, value pairs
+    public <T> void gauge(String name, T source, ToDoubleFunction<T> value, String... tags) {
+        registry.gauge(name, Tags.of(tags), source, value);
+    }
+}
@@ -0,0 +1,10 @@
+package uk.ac.ed.inf.models;
+
+// Fixed locations shared by the controller, the route table and the tour
+// planner
+public final class DeliveryConstants {
+    // Every delivery ends at Appleton Tower
+    public static final LngLat APPLETON_TOWER = new LngLat(-3.186874, 55.944494);
+
+    private DeliveryConstants() {}
+}
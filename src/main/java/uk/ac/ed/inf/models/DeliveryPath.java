@@ -0,0 +1,23 @@
+package uk.ac.ed.inf.models;
+
+import java.util.List;
+
+public class DeliveryPath {
+    private String orderNo;
+    private OrderStatus orderStatus;
+    private OrderValidationCode orderValidationCode;
+    private List<LngLat> path;
+
+    // Getters and setters
+    public String getOrderNo() { return orderNo; }
+    public void setOrderNo(String orderNo) { this.orderNo = orderNo; }
+
+    public OrderStatus getOrderStatus() { return orderStatus; }
+    public void setOrderStatus(OrderStatus orderStatus) { this.orderStatus = orderStatus; }
+
+    public OrderValidationCode getOrderValidationCode() { return orderValidationCode; }
+    public void setOrderValidationCode(OrderValidationCode orderValidationCode) { this.orderValidationCode = orderValidationCode; }
+
+    public List<LngLat> getPath() { return path; }
+    public void setPath(List<LngLat> path) { this.path = path; }
+}
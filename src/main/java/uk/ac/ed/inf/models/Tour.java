@@ -0,0 +1,26 @@
+package uk.ac.ed.inf.models;
+
+import java.util.List;
+
+// One drone flight from Appleton Tower, picking up at every restaurant in
+// turn and returning to deliver. Leg i flies to restaurant i, the last leg
+// flies back to Appleton Tower.
+public class Tour {
+    private List<String> orderNos;
+    private List<String> restaurants;
+    private int moves;
+    private List<List<LngLat>> legs;
+
+    // Getters and setters
+    public List<String> getOrderNos() { return orderNos; }
+    public void setOrderNos(List<String> orderNos) { this.orderNos = orderNos; }
+
+    public List<String> getRestaurants() { return restaurants; }
+    public void setRestaurants(List<String> restaurants) { this.restaurants = restaurants; }
+
+    public int getMoves() { return moves; }
+    public void setMoves(int moves) { this.moves = moves; }
+
+    public List<List<LngLat>> getLegs() { return legs; }
+    public void setLegs(List<List<LngLat>> legs) { this.legs = legs; }
+}
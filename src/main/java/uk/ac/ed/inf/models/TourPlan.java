@@ -0,0 +1,25 @@
+package uk.ac.ed.inf.models;
+
+import java.util.List;
+
+public class TourPlan {
+    private List<Tour> tours;
+    // Orders that are invalid or cannot be delivered within the move budget
+    private List<String> unassignedOrderNos;
+    private int totalMoves;
+    // Moves the same orders would take with one round trip each
+    private int singleOrderMoves;
+
+    // Getters and setters
+    public List<Tour> getTours() { return tours; }
+    public void setTours(List<Tour> tours) { this.tours = tours; }
+
+    public List<String> getUnassignedOrderNos() { return unassignedOrderNos; }
+    public void setUnassignedOrderNos(List<String> unassignedOrderNos) { this.unassignedOrderNos = unassignedOrderNos; }
+
+    public int getTotalMoves() { return totalMoves; }
+    public void setTotalMoves(int totalMoves) { this.totalMoves = totalMoves; }
+
+    public int getSingleOrderMoves() { return singleOrderMoves; }
+    public void setSingleOrderMoves(int singleOrderMoves) { this.singleOrderMoves = singleOrderMoves; }
+}
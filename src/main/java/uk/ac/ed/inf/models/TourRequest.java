@@ -0,0 +1,16 @@
+package uk.ac.ed.inf.models;
+
+import java.util.List;
+
+public class TourRequest {
+    private List<Order> orders;
+    // Most moves one tour may take, 0 for the configured default
+    private int moveBudget;
+
+    // Getters and setters
+    public List<Order> getOrders() { return orders; }
+    public void setOrders(List<Order> orders) { this.orders = orders; }
+
+    public int getMoveBudget() { return moveBudget; }
+    public void setMoveBudget(int moveBudget) { this.moveBudget = moveBudget; }
+}
@@ -0,0 +1,129 @@
+package uk.ac.ed.inf.pathfinding;
+
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.models.NoFlyZone;
+import uk.ac.ed.inf.models.Region;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+// The no-fly zones and central area compiled for path planning. Built once per
+// reference data snapshot and shared read-only by all planner runs. Zone edges
+// are bucketed in an EdgeGrid so a move is only tested against nearby edges.
+// An optional OccupancyRaster answers most checks before the exact geometry.
+public final class Airspace {
+    private final EdgeGrid noFlyZones;
+    private final CompiledPolygon centralArea;
+    private final long contentHash;
+    private final OccupancyRaster raster;
+
+    // Source vertices for the visibility graph, which is only built on first use
+    private final List<List<LngLat>> zoneVertices;
+    private final List<LngLat> centralVertices;
+    private final AtomicReference<VisibilityGraph> visibilityGraph;
+
+    private Airspace(EdgeGrid noFlyZones, CompiledPolygon centralArea, long contentHash, OccupancyRaster raster,
+                     List<List<LngLat>> zoneVertices, List<LngLat> centralVertices, AtomicReference<VisibilityGraph> visibilityGraph) {
+        this.noFlyZones = noFlyZones;
+        this.centralArea = centralArea;
+        this.contentHash = contentHash;
+        this.raster = raster;
+        this.zoneVertices = zoneVertices;
+        this.centralVertices = centralVertices;
+        this.visibilityGraph = visibilityGraph;
+    }
+
+    // The central area may be null when it could not be fetched, planning
+    // against such an airspace fails
+    public static Airspace compile(List<NoFlyZone> noFlyZones, Region centralArea) {
+        CompiledPolygon[] zones = new CompiledPolygon[noFlyZones.size()];
+        List<List<LngLat>> zoneVertices = new ArrayList<>(zones.length);
+        for (int i = 0; i < zones.length; i++) {
+            zones[i] = new CompiledPolygon(noFlyZones.get(i).getVertices());
+            zoneVertices.add(noFlyZones.get(i).getVertices());
+        }
+        CompiledPolygon central = centralArea == null ? null : new CompiledPolygon(centralArea.getVertices());
+        return new Airspace(new EdgeGrid(zones), central, contentHash(noFlyZones, centralArea), null,
+                zoneVertices, centralArea == null ? null : centralArea.getVertices(), new AtomicReference<>());
+    }
+
+    // The raster must have been built from the same zones and central area
+    public Airspace withRaster(OccupancyRaster raster) {
+        return new Airspace(noFlyZones, centralArea, contentHash, raster, zoneVertices, centralVertices, visibilityGraph);
+    }
+
+    public OccupancyRaster getRaster() {
+        return raster;
+    }
+
+    public boolean hasCentralArea() {
+        return centralArea != null;
+    }
+
+    // Content hash over every vertex, equal for airspaces built from the same data
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    public boolean crossesNoFlyZone(double fromLng, double fromLat, double toLng, double toLat) {
+        if (raster != null && raster.isClearOfZones(fromLng, fromLat, toLng, toLat)) {
+            return false;
+        }
+        return noFlyZones.crossesAny(fromLng, fromLat, toLng, toLat);
+    }
+
+    public boolean isInCentralArea(double lng, double lat) {
+        if (raster != null) {
+            int state = raster.centralAreaState(lng, lat);
+            if (state != OccupancyRaster.UNKNOWN) {
+                return state == OccupancyRaster.INSIDE;
+            }
+        }
+        return centralArea.contains(lng, lat);
+    }
+
+    // True if the segment touches the central area boundary
+    boolean crossesCentralBoundary(double fromLng, double fromLat, double toLng, double toLat) {
+        return centralArea.intersectsSegment(fromLng, fromLat, toLng, toLat);
+    }
+
+    // Built on first use and shared by every copy of this airspace. Two
+    // threads may race to build it, only one graph is ever published.
+    VisibilityGraph getVisibilityGraph() {
+        VisibilityGraph graph = visibilityGraph.get();
+        if (graph == null) {
+            visibilityGraph.compareAndSet(null, new VisibilityGraph(this, zoneVertices, centralVertices));
+            graph = visibilityGraph.get();
+        }
+        return graph;
+    }
+
+    // Check if a move is valid given the no-fly zones and the central area rule
+    public boolean isValidMove(LngLat from, LngLat to, boolean enteredCentralArea) {
+        if (crossesNoFlyZone(from.getLng(), from.getLat(), to.getLng(), to.getLat())) {
+            return false;
+        }
+        // Once the path has entered the central area it must not leave it again
+        return !enteredCentralArea || isInCentralArea(to.getLng(), to.getLat());
+    }
+
+    private static long contentHash(List<NoFlyZone> noFlyZones, Region centralArea) {
+        long hash = 1125899906842597L;
+        for (NoFlyZone zone : noFlyZones) {
+            hash = hashVertices(hash, zone.getVertices());
+        }
+        if (centralArea != null) {
+            hash = hashVertices(hash * 31 + 7, centralArea.getVertices());
+        }
+        return hash;
+    }
+
+    static long hashVertices(long hash, List<LngLat> vertices) {
+        hash = hash * 31 + vertices.size();
+        for (LngLat vertex : vertices) {
+            hash = hash * 31 + Double.doubleToLongBits(vertex.getLng());
+            hash = hash * 31 + Double.doubleToLongBits(vertex.getLat());
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,152 @@
+package uk.ac.ed.inf.pathfinding;
+
+import uk.ac.ed.inf.models.LngLat;
+import java.util.List;
+
+// A polygon flattened into primitive arrays for the planner's hot loop. The
+// tests give bit for bit the same answers as Geometry.isPointInPolygon and
+// Geometry.lineIntersectsPolygon, but read contiguous doubles instead of
+// boxed LngLat getters and never allocate.
+public final class CompiledPolygon {
+    // Segments are rejected by bounding box only when clearly apart, so
+    // rounding in the exact test can never be skipped
+    private static final double BOX_TOLERANCE = 1e-9;
+
+    private final int edgeCount;
+
+    // Edge i runs from vertex i to vertex (i + 1) % n, as in Geometry
+    private final double[] x1;
+    private final double[] y1;
+    private final double[] dx;
+    private final double[] dy;
+
+    // Per edge values for the ray casting test, with the lower vertex first
+    private final double[] lowY;
+    private final double[] highY;
+    private final double[] lowX;
+    private final double[] minX;
+    private final double[] maxX;
+    private final double[] slope;
+
+    private final double boxMinX;
+    private final double boxMaxX;
+    private final double boxMinY;
+    private final double boxMaxY;
+
+    public CompiledPolygon(List<LngLat> vertices) {
+        int n = vertices.size();
+        edgeCount = n;
+        x1 = new double[n];
+        y1 = new double[n];
+        dx = new double[n];
+        dy = new double[n];
+        lowY = new double[n];
+        highY = new double[n];
+        lowX = new double[n];
+        minX = new double[n];
+        maxX = new double[n];
+        slope = new double[n];
+
+        double bMinX = Double.POSITIVE_INFINITY;
+        double bMaxX = Double.NEGATIVE_INFINITY;
+        double bMinY = Double.POSITIVE_INFINITY;
+        double bMaxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            LngLat a = vertices.get(i);
+            LngLat b = vertices.get((i + 1) % n);
+            x1[i] = a.getLng();
+            y1[i] = a.getLat();
+            dx[i] = b.getLng() - a.getLng();
+            dy[i] = b.getLat() - a.getLat();
+
+            if (a.getLat() > b.getLat()) {
+                LngLat temp = a;
+                a = b;
+                b = temp;
+            }
+            lowY[i] = a.getLat();
+            highY[i] = b.getLat();
+            lowX[i] = a.getLng();
+            minX[i] = Math.min(a.getLng(), b.getLng());
+            maxX[i] = Math.max(a.getLng(), b.getLng());
+            slope[i] = (b.getLat() - a.getLat()) / (b.getLng() - a.getLng());
+
+            bMinX = Math.min(bMinX, x1[i]);
+            bMaxX = Math.max(bMaxX, x1[i]);
+            bMinY = Math.min(bMinY, y1[i]);
+            bMaxY = Math.max(bMaxY, y1[i]);
+        }
+        boxMinX = bMinX;
+        boxMaxX = bMaxX;
+        boxMinY = bMinY;
+        boxMaxY = bMaxY;
+    }
+
+    public double getMinX() { return boxMinX; }
+    public double getMaxX() { return boxMaxX; }
+    public double getMinY() { return boxMinY; }
+    public double getMaxY() { return boxMaxY; }
+
+    int getEdgeCount() { return edgeCount; }
+    double edgeMinX(int i) { return Math.min(x1[i], x1[i] + dx[i]); }
+    double edgeMaxX(int i) { return Math.max(x1[i], x1[i] + dx[i]); }
+    double edgeMinY(int i) { return Math.min(y1[i], y1[i] + dy[i]); }
+    double edgeMaxY(int i) { return Math.max(y1[i], y1[i] + dy[i]); }
+
+    // Same as Geometry.isPointInPolygon
+    public boolean contains(double x, double y) {
+        // Outside these bounds every edge test below is false
+        if (y < boxMinY || y > boxMaxY || x >= boxMaxX) {
+            return false;
+        }
+        int intersectCount = 0;
+        for (int i = 0; i < edgeCount; i++) {
+            if (rayCrossesEdge(i, x, y)) {
+                intersectCount++;
+            }
+        }
+        return (intersectCount % 2) == 1;
+    }
+
+    private boolean rayCrossesEdge(int i, double x, double y) {
+        double py = y;
+        if (py == lowY[i] || py == highY[i]) {
+            py = y + 0.00000001;
+        }
+        if (py < lowY[i] || py > highY[i] || x >= maxX[i]) {
+            return false;
+        }
+        if (x < minX[i]) {
+            return true;
+        }
+        double red = (py - lowY[i]) / (x - lowX[i]);
+        return red >= slope[i];
+    }
+
+    // Same as Geometry.lineIntersectsPolygon for the segment (px, py) -> (qx, qy)
+    public boolean intersectsSegment(double px, double py, double qx, double qy) {
+        if (Math.max(px, qx) < boxMinX - BOX_TOLERANCE || Math.min(px, qx) > boxMaxX + BOX_TOLERANCE
+                || Math.max(py, qy) < boxMinY - BOX_TOLERANCE || Math.min(py, qy) > boxMaxY + BOX_TOLERANCE) {
+            return false;
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            if (segmentCrossesEdge(i, px, py, qx, qy)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Same arithmetic as Geometry.linesIntersect
+    boolean segmentCrossesEdge(int i, double px, double py, double qx, double qy) {
+        double s1_x = qx - px;
+        double s1_y = qy - py;
+        double s2_x = dx[i];
+        double s2_y = dy[i];
+
+        double s = (-s1_y * (px - x1[i]) + s1_x * (py - y1[i])) / (-s2_x * s1_y + s1_x * s2_y);
+        double t = ( s2_x * (py - y1[i]) - s2_y * (px - x1[i])) / (-s2_x * s1_y + s1_x * s2_y);
+
+        return (s >= 0 && s <= 1 && t >= 0 && t <= 1);
+    }
+}
@@ -0,0 +1,135 @@
+package uk.ac.ed.inf.pathfinding;
+
+// Uniform grid over the edges of the no-fly zones. Each cell lists the edges
+// whose bounding box touches it, so a move only has to be tested against the
+// few edges near it, and a move outside the zones' overall bounding box is
+// rejected with four comparisons.
+final class EdgeGrid {
+    static final double DEFAULT_CELL_SIZE = 0.0005;
+    private static final int MAX_CELLS_PER_AXIS = 1024;
+
+    // Edge and segment boxes are padded so rounding in the exact test never
+    // depends on a cell boundary
+    private static final double PADDING = 1e-9;
+
+    private final CompiledPolygon[] zones;
+    private final boolean empty;
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+
+    // Compressed rows: the edges of cell c are edgeZone/edgeIndex[cellStart[c] .. cellStart[c + 1])
+    private final int[] cellStart;
+    private final int[] edgeZone;
+    private final int[] edgeIndex;
+
+    EdgeGrid(CompiledPolygon[] zones) {
+        this(zones, DEFAULT_CELL_SIZE);
+    }
+
+    EdgeGrid(CompiledPolygon[] zones, double preferredCellSize) {
+        this.zones = zones;
+
+        double bMinX = Double.POSITIVE_INFINITY;
+        double bMinY = Double.POSITIVE_INFINITY;
+        double bMaxX = Double.NEGATIVE_INFINITY;
+        double bMaxY = Double.NEGATIVE_INFINITY;
+        for (CompiledPolygon zone : zones) {
+            bMinX = Math.min(bMinX, zone.getMinX());
+            bMinY = Math.min(bMinY, zone.getMinY());
+            bMaxX = Math.max(bMaxX, zone.getMaxX());
+            bMaxY = Math.max(bMaxY, zone.getMaxY());
+        }
+        empty = zones.length == 0;
+        minX = bMinX - PADDING;
+        minY = bMinY - PADDING;
+        maxX = bMaxX + PADDING;
+        maxY = bMaxY + PADDING;
+
+        double width = empty ? 0 : maxX - minX;
+        double height = empty ? 0 : maxY - minY;
+        cellSize = Math.max(preferredCellSize, Math.max(width, height) / MAX_CELLS_PER_AXIS);
+        columns = (int) (width / cellSize) + 1;
+        rows = (int) (height / cellSize) + 1;
+
+        // Two passes, count the edges per cell and then fill them in
+        cellStart = new int[columns * rows + 1];
+        for (int z = 0; z < zones.length; z++) {
+            for (int e = 0; e < zones[z].getEdgeCount(); e++) {
+                forEachCell(zones[z], e, cell -> cellStart[cell + 1]++);
+            }
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        edgeZone = new int[cellStart[columns * rows]];
+        edgeIndex = new int[edgeZone.length];
+        int[] fill = new int[columns * rows];
+        for (int z = 0; z < zones.length; z++) {
+            for (int e = 0; e < zones[z].getEdgeCount(); e++) {
+                int zone = z;
+                int edge = e;
+                forEachCell(zones[z], e, cell -> {
+                    int slot = cellStart[cell] + fill[cell]++;
+                    edgeZone[slot] = zone;
+                    edgeIndex[slot] = edge;
+                });
+            }
+        }
+    }
+
+    private interface CellVisitor {
+        void visit(int cell);
+    }
+
+    private void forEachCell(CompiledPolygon zone, int edge, CellVisitor visitor) {
+        int c0 = column(zone.edgeMinX(edge) - PADDING);
+        int c1 = column(zone.edgeMaxX(edge) + PADDING);
+        int r0 = row(zone.edgeMinY(edge) - PADDING);
+        int r1 = row(zone.edgeMaxY(edge) + PADDING);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                visitor.visit(r * columns + c);
+            }
+        }
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) ((x - minX) / cellSize)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - minY) / cellSize)));
+    }
+
+    // True if the segment crosses an edge of any zone, same result as testing
+    // every zone with CompiledPolygon.intersectsSegment
+    boolean crossesAny(double px, double py, double qx, double qy) {
+        double sMinX = Math.min(px, qx);
+        double sMaxX = Math.max(px, qx);
+        double sMinY = Math.min(py, qy);
+        double sMaxY = Math.max(py, qy);
+        if (empty || sMaxX < minX || sMinX > maxX || sMaxY < minY || sMinY > maxY) {
+            return false;
+        }
+        int c0 = column(sMinX - PADDING);
+        int c1 = column(sMaxX + PADDING);
+        int r0 = row(sMinY - PADDING);
+        int r1 = row(sMaxY + PADDING);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * columns + c;
+                for (int slot = cellStart[cell]; slot < cellStart[cell + 1]; slot++) {
+                    if (zones[edgeZone[slot]].segmentCrossesEdge(edgeIndex[slot], px, py, qx, qy)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
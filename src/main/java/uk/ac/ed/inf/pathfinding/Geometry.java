@@ -0,0 +1,70 @@
+package uk.ac.ed.inf.pathfinding;
+
+import uk.ac.ed.inf.models.LngLat;
+import java.util.List;
+
+// Polygon and segment tests shared by the controller and the path planner
+public final class Geometry {
+
+    private Geometry() {}
+
+    // Ray casting point-in-polygon test
+    public static boolean isPointInPolygon(LngLat point, List<LngLat> vertices) {
+        int intersectCount = 0;
+        for (int i = 0; i < vertices.size(); i++) {
+            LngLat v1 = vertices.get(i);
+            LngLat v2 = vertices.get((i + 1) % vertices.size());
+
+            if (intersectsSegment(point, v1, v2)) {
+                intersectCount++;
+            }
+        }
+        return (intersectCount % 2) == 1;
+    }
+
+    private static boolean intersectsSegment(LngLat p, LngLat a, LngLat b) {
+        if (a.getLat() > b.getLat()) {
+            LngLat temp = a;
+            a = b;
+            b = temp;
+        }
+        if (p.getLat() == a.getLat() || p.getLat() == b.getLat()) {
+            p = new LngLat(p.getLng(), p.getLat() + 0.00000001);
+        }
+        if (p.getLat() < a.getLat() || p.getLat() > b.getLat() || p.getLng() >= Math.max(a.getLng(), b.getLng())) {
+            return false;
+        }
+        if (p.getLng() < Math.min(a.getLng(), b.getLng())) {
+            return true;
+        }
+
+        double red = (p.getLat() - a.getLat()) / (p.getLng() - a.getLng());
+        double blue = (b.getLat() - a.getLat()) / (b.getLng() - a.getLng());
+        return red >= blue;
+    }
+
+    // Check if a line segment intersects with any edge of a polygon
+    public static boolean lineIntersectsPolygon(LngLat p1, LngLat p2, List<LngLat> polygon) {
+        for (int i = 0; i < polygon.size(); i++) {
+            LngLat a = polygon.get(i);
+            LngLat b = polygon.get((i + 1) % polygon.size());
+            if (linesIntersect(p1, p2, a, b)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Check if two line segments intersect using the cross product method
+    public static boolean linesIntersect(LngLat p1, LngLat p2, LngLat q1, LngLat q2) {
+        double s1_x = p2.getLng() - p1.getLng();
+        double s1_y = p2.getLat() - p1.getLat();
+        double s2_x = q2.getLng() - q1.getLng();
+        double s2_y = q2.getLat() - q1.getLat();
+
+        double s = (-s1_y * (p1.getLng() - q1.getLng()) + s1_x * (p1.getLat() - q1.getLat())) / (-s2_x * s1_y + s1_x * s2_y);
+        double t = ( s2_x * (p1.getLat() - q1.getLat()) - s2_y * (p1.getLng() - q1.getLng())) / (-s2_x * s1_y + s1_x * s2_y);
+
+        return (s >= 0 && s <= 1 && t >= 0 && t <= 1);
+    }
+}
@@ -0,0 +1,823 @@
+package uk.ac.ed.inf.pathfinding;
+
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.models.NoFlyZone;
+import uk.ac.ed.inf.models.Region;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// A* over the 16 direction move lattice. Positions are snapped onto integer
+// cells of CELL_SIZE degrees relative to the start so that two move sequences
+// ending in the same cell are treated as the same search state. The positions
+// stored for each state are the exact ones LngLat.nextPosition would produce,
+// so every step of the returned path is still a legal 0.00015 degree move.
+public class GridPathPlanner {
+    public static final double STEP = 0.00015;
+    public static final double ANGLE_STEP = 22.5;
+    public static final int DIRECTIONS = 16;
+
+    // Half a move, fine enough to keep distinct routes around obstacles apart
+    static final double CELL_SIZE = STEP / 2;
+
+    // Upper bound on the number of states created by a single search
+    public static final int DEFAULT_MAX_NODES = 500_000;
+
+    // Joins a bidirectional search may reject before it falls back to A*
+    static final int MAX_REJECTED_JOINS = 64;
+
+    // Heuristic weight of an anytime search, and how much it is lowered
+    // after each path found
+    public static final double DEFAULT_EPSILON = 2.0;
+    static final double EPSILON_STEP = 0.5;
+
+    // Move offsets per direction, computed exactly as LngLat.nextPosition does
+    static final double[] MOVE_LNG = new double[DIRECTIONS];
+    static final double[] MOVE_LAT = new double[DIRECTIONS];
+
+    static {
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            double rad = Math.toRadians(direction * ANGLE_STEP);
+            MOVE_LNG[direction] = STEP * Math.cos(rad);
+            MOVE_LAT[direction] = STEP * Math.sin(rad);
+        }
+    }
+
+    private final Airspace airspace;
+    private final int maxNodes;
+    private final PlannerAlgorithm algorithm;
+    private final double epsilon;
+    private final long timeBudgetNanos;
+
+    public GridPathPlanner(List<NoFlyZone> noFlyZones, Region centralArea) {
+        this(Airspace.compile(noFlyZones, centralArea));
+    }
+
+    public GridPathPlanner(Airspace airspace) {
+        this(airspace, DEFAULT_MAX_NODES);
+    }
+
+    public GridPathPlanner(Airspace airspace, PlannerAlgorithm algorithm) {
+        this(airspace, DEFAULT_MAX_NODES, algorithm);
+    }
+
+    public GridPathPlanner(Airspace airspace, int maxNodes) {
+        this(airspace, maxNodes, PlannerAlgorithm.ASTAR);
+    }
+
+    public GridPathPlanner(Airspace airspace, int maxNodes, PlannerAlgorithm algorithm) {
+        this(airspace, maxNodes, algorithm, DEFAULT_EPSILON, Duration.ZERO);
+    }
+
+    // Anytime search: the first path is at most epsilon times as long as the
+    // shortest one and is then improved until the time budget runs out. A
+    // zero budget returns the first path.
+    public GridPathPlanner(Airspace airspace, double epsilon, Duration timeBudget) {
+        this(airspace, DEFAULT_MAX_NODES, PlannerAlgorithm.ANYTIME, epsilon, timeBudget);
+    }
+
+    public GridPathPlanner(Airspace airspace, int maxNodes, PlannerAlgorithm algorithm, double epsilon, Duration timeBudget) {
+        if (!airspace.hasCentralArea()) {
+            throw new IllegalStateException("Central area is not available");
+        }
+        if (!(epsilon >= 1)) {
+            throw new IllegalArgumentException("epsilon must be at least 1: " + epsilon);
+        }
+        this.airspace = airspace;
+        this.maxNodes = maxNodes;
+        this.algorithm = algorithm;
+        this.epsilon = epsilon;
+        this.timeBudgetNanos = timeBudget.toNanos();
+    }
+
+    public PlannerAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    // Returns the path from start to a position close to end, with a hover
+    // at either end, or null if no path exists within the node budget
+    public List<LngLat> plan(LngLat start, LngLat end) {
+        return plan(start, end, null);
+    }
+
+    // As plan(start, end), also recording what the search did into stats
+    public List<LngLat> plan(LngLat start, LngLat end, SearchStats stats) {
+        Counters counters = new Counters();
+        List<LngLat> path;
+        switch (algorithm) {
+            case BIDIRECTIONAL:
+                path = new BidirectionalSearch(start, end, counters).run();
+                break;
+            case VISIBILITY:
+                path = new VisibilitySearch(start, end, counters).run();
+                break;
+            case ANYTIME:
+                path = new AnytimeSearch(start, end, counters).run();
+                break;
+            default:
+                path = new Search(start, end, counters).run();
+                counters.bound = path == null ? 0 : 1;
+        }
+        if (stats != null) {
+            stats.nodesExpanded = counters.expanded;
+            stats.nodesCreated = counters.created;
+            stats.openSetPeak = counters.openSetPeak;
+            stats.rejectedByNoFlyZone = counters.rejectedByNoFlyZone;
+            stats.rejectedByCentralArea = counters.rejectedByCentralArea;
+            stats.pathLength = path == null ? 0 : path.size();
+            stats.suboptimalityBound = counters.bound;
+        }
+        return path;
+    }
+
+    // Check if a move is valid given the no-fly zones and the central area rule
+    public static boolean isValidMove(LngLat from, LngLat to, List<NoFlyZone> noFlyZones, Region centralArea, boolean enteredCentralArea) {
+        return Airspace.compile(noFlyZones, centralArea).isValidMove(from, to, enteredCentralArea);
+    }
+
+    static long latticeKey(int i, int j, boolean flag) {
+        return ((long) i << 32) | (((long) j << 1 | (flag ? 1 : 0)) & 0xFFFFFFFFL);
+    }
+
+    private static int cellOf(double offset) {
+        return (int) Math.round(offset / CELL_SIZE);
+    }
+
+    // Same arithmetic as LngLat.distanceTo
+    private static double distance(double aLng, double aLat, double bLng, double bLat) {
+        double dLng = aLng - bLng;
+        double dLat = aLat - bLat;
+        return Math.sqrt(dLng * dLng + dLat * dLat);
+    }
+
+    // Fewest moves that can bring a position this far away within STEP of the target
+    private static double movesLeft(double distanceToTarget) {
+        return Math.max(0, distanceToTarget / STEP - 1);
+    }
+
+    // Add hover at the start and end positions
+    private static List<LngLat> withHovers(List<LngLat> path) {
+        path.add(0, path.get(0));
+        path.add(path.get(path.size() - 1));
+        return path;
+    }
+
+    // What a search did, summed over every search a plan ran
+    private static final class Counters {
+        private int expanded;
+        private int created;
+        private int openSetPeak;
+        private int rejectedByNoFlyZone;
+        private int rejectedByCentralArea;
+        private double bound;
+    }
+
+    // States of one search direction, kept in parallel primitive arrays indexed
+    // by node id. Lattice cells are always taken relative to the plan's start
+    // so that the states of both directions of a bidirectional search line up.
+    // The flag is the central area state: for the forward search whether the
+    // path has entered it, for the backward search whether every position
+    // from the state to the end is inside it.
+    private static final class Frontier {
+        private final double originLng;
+        private final double originLat;
+        private final double targetLng;
+        private final double targetLat;
+
+        private double[] lng = new double[1024];
+        private double[] lat = new double[1024];
+        private double[] gCost = new double[1024];
+        // Queue priority, g + weight * h
+        private double[] fCost = new double[1024];
+        private int[] parent = new int[1024];
+        // Move from the state towards its parent, only used backward
+        private byte[] direction = new byte[1024];
+        private boolean[] flag = new boolean[1024];
+        private boolean[] closed = new boolean[1024];
+        private int nodeCount;
+        // Heuristic weight, only above 1 in an anytime search
+        private double weight = 1;
+
+        private final LongIntHashMap index = new LongIntHashMap(4096);
+        private final IndexedMinHeap openSet = new IndexedMinHeap(1024);
+
+        Frontier(LngLat origin, double targetLng, double targetLat) {
+            this.originLng = origin.getLng();
+            this.originLat = origin.getLat();
+            this.targetLng = targetLng;
+            this.targetLat = targetLat;
+        }
+
+        int cellI(double nodeLng) {
+            return cellOf(nodeLng - originLng);
+        }
+
+        int cellJ(double nodeLat) {
+            return cellOf(nodeLat - originLat);
+        }
+
+        double distanceToTarget(double nodeLng, double nodeLat) {
+            return distance(nodeLng, nodeLat, targetLng, targetLat);
+        }
+
+        int add(double nodeLng, double nodeLat, int parentNode, int moveDirection, double g, boolean nodeFlag, int i, int j) {
+            if (nodeCount == lng.length) {
+                grow();
+            }
+            int node = nodeCount++;
+            lng[node] = nodeLng;
+            lat[node] = nodeLat;
+            gCost[node] = g;
+            fCost[node] = g + weight * distanceToTarget(nodeLng, nodeLat) / STEP;
+            parent[node] = parentNode;
+            direction[node] = (byte) moveDirection;
+            flag[node] = nodeFlag;
+            index.put(latticeKey(i, j, nodeFlag), node);
+            openSet.insert(node, fCost[node]);
+            return node;
+        }
+
+        // Cheaper way into a state that is still open, re-parent it in place.
+        // With a weighted heuristic the new f may be higher than the old one.
+        void reparent(int node, double nodeLng, double nodeLat, int parentNode, int moveDirection, double g) {
+            lng[node] = nodeLng;
+            lat[node] = nodeLat;
+            gCost[node] = g;
+            fCost[node] = g + weight * distanceToTarget(nodeLng, nodeLat) / STEP;
+            parent[node] = parentNode;
+            direction[node] = (byte) moveDirection;
+            openSet.update(node, fCost[node]);
+        }
+
+        // Re-orders the open set for a new heuristic weight
+        void reweight(double newWeight) {
+            weight = newWeight;
+            for (int node = 0; node < nodeCount; node++) {
+                if (openSet.contains(node)) {
+                    fCost[node] = gCost[node] + weight * distanceToTarget(lng[node], lat[node]) / STEP;
+                }
+            }
+            openSet.rebuild(fCost);
+        }
+
+        // Fewest moves any path through an open state can take, infinite if
+        // the open set is empty
+        double lowerBound() {
+            double lower = Double.POSITIVE_INFINITY;
+            for (int node = 0; node < nodeCount; node++) {
+                if (openSet.contains(node)) {
+                    lower = Math.min(lower, gCost[node] + movesLeft(distanceToTarget(lng[node], lat[node])));
+                }
+            }
+            return lower;
+        }
+
+        private void grow() {
+            int capacity = lng.length * 2;
+            lng = Arrays.copyOf(lng, capacity);
+            lat = Arrays.copyOf(lat, capacity);
+            gCost = Arrays.copyOf(gCost, capacity);
+            fCost = Arrays.copyOf(fCost, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            direction = Arrays.copyOf(direction, capacity);
+            flag = Arrays.copyOf(flag, capacity);
+            closed = Arrays.copyOf(closed, capacity);
+        }
+
+        // Positions from the root state to node, in search order
+        List<LngLat> pathTo(int node, LngLat root) {
+            List<LngLat> path = new ArrayList<>();
+            for (; node > 0; node = parent[node]) {
+                path.add(new LngLat(lng[node], lat[node]));
+            }
+            path.add(root);
+            Collections.reverse(path);
+            return path;
+        }
+    }
+
+    // Forward A* from the start
+    private final class Search {
+        private final LngLat start;
+        private final Frontier forward;
+        private final Counters counters;
+
+        Search(LngLat start, LngLat end, Counters counters) {
+            this.start = start;
+            this.forward = new Frontier(start, end.getLng(), end.getLat());
+            this.counters = counters;
+            forward.add(start.getLng(), start.getLat(), -1, 0, 0, airspace.isInCentralArea(start.getLng(), start.getLat()), 0, 0);
+        }
+
+        List<LngLat> run() {
+            try {
+                return search();
+            } finally {
+                counters.created += forward.nodeCount;
+            }
+        }
+
+        private List<LngLat> search() {
+            Frontier f = forward;
+            while (!f.openSet.isEmpty()) {
+                int current = f.openSet.poll();
+                double currentLng = f.lng[current];
+                double currentLat = f.lat[current];
+
+                if (f.distanceToTarget(currentLng, currentLat) < STEP) {
+                    return withHovers(f.pathTo(current, start));
+                }
+
+                f.closed[current] = true;
+                counters.expanded++;
+
+                for (int direction = 0; direction < DIRECTIONS; direction++) {
+                    double newLng = currentLng + MOVE_LNG[direction];
+                    double newLat = currentLat + MOVE_LAT[direction];
+
+                    if (airspace.crossesNoFlyZone(currentLng, currentLat, newLng, newLat)) {
+                        counters.rejectedByNoFlyZone++;
+                        continue;
+                    }
+                    boolean toInCentral = airspace.isInCentralArea(newLng, newLat);
+                    if (f.flag[current] && !toInCentral) {
+                        counters.rejectedByCentralArea++;
+                        continue;
+                    }
+                    boolean neighborEntered = f.flag[current] || toInCentral;
+
+                    int i = f.cellI(newLng);
+                    int j = f.cellJ(newLat);
+                    int existing = f.index.get(latticeKey(i, j, neighborEntered));
+                    double g = f.gCost[current] + 1;
+                    if (existing == LongIntHashMap.MISSING) {
+                        if (f.nodeCount >= maxNodes) {
+                            return null;
+                        }
+                        f.add(newLng, newLat, current, direction, g, neighborEntered, i, j);
+                        counters.openSetPeak = Math.max(counters.openSetPeak, f.openSet.size());
+                    } else if (!f.closed[existing] && g < f.gCost[existing]) {
+                        f.reparent(existing, newLng, newLat, current, direction, g);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    // A* from both ends at once, always expanding the side with the smaller
+    // open set. The backward search walks moves in reverse from the end, so
+    // its positions are end minus a sum of moves while the forward ones are
+    // start plus a sum of moves; where both reach the same lattice cell with
+    // compatible central area states the path is joined by replaying the
+    // backward moves from the forward position. The replayed positions are
+    // off by up to half a cell from the backward ones, so every replayed move
+    // is checked against the airspace again and a join that fails is dropped.
+    // The first legal join is taken, which can be a few moves longer than the
+    // A* path; if the searches never meet a plain forward search is run.
+    private final class BidirectionalSearch {
+        private final LngLat start;
+        private final LngLat end;
+        private final Frontier forward;
+        private final Frontier backward;
+        private final Counters counters;
+
+        // Best join offered by the last expansion: forward state, backward
+        // state (-1 when the forward state is itself close enough to the end)
+        // and total cost
+        private int bestForward = -1;
+        private int bestBackward = -1;
+        private double bestCost = Double.POSITIVE_INFINITY;
+
+        BidirectionalSearch(LngLat start, LngLat end, Counters counters) {
+            this.start = start;
+            this.end = end;
+            this.forward = new Frontier(start, end.getLng(), end.getLat());
+            this.backward = new Frontier(start, start.getLng(), start.getLat());
+            this.counters = counters;
+            forward.add(start.getLng(), start.getLat(), -1, 0, 0, airspace.isInCentralArea(start.getLng(), start.getLat()), 0, 0);
+            backward.add(end.getLng(), end.getLat(), -1, 0, 0, airspace.isInCentralArea(end.getLng(), end.getLat()),
+                    backward.cellI(end.getLng()), backward.cellJ(end.getLat()));
+        }
+
+        List<LngLat> run() {
+            List<LngLat> path;
+            try {
+                path = search();
+            } finally {
+                counters.created += forward.nodeCount + backward.nodeCount;
+            }
+            if (path == null && forward.nodeCount + backward.nodeCount < maxNodes) {
+                // The searches did not meet or the join was not a legal path
+                path = new Search(start, end, counters).run();
+            }
+            return path;
+        }
+
+        private List<LngLat> search() {
+            if (forward.distanceToTarget(start.getLng(), start.getLat()) < STEP) {
+                return withHovers(forward.pathTo(0, start));
+            }
+            int rejectedJoins = 0;
+            while (!forward.openSet.isEmpty() && !backward.openSet.isEmpty()) {
+                boolean expandForward = forward.openSet.size() <= backward.openSet.size();
+                if (!(expandForward ? expandForward() : expandBackward())) {
+                    return null;
+                }
+                counters.openSetPeak = Math.max(counters.openSetPeak, forward.openSet.size() + backward.openSet.size());
+
+                // Take the first join that replays to a legal path rather
+                // than searching on for a provably shortest one
+                if (bestForward >= 0) {
+                    List<LngLat> path = join();
+                    if (path != null) {
+                        return path;
+                    }
+                    if (++rejectedJoins >= MAX_REJECTED_JOINS) {
+                        return null;
+                    }
+                    bestForward = -1;
+                    bestBackward = -1;
+                    bestCost = Double.POSITIVE_INFINITY;
+                }
+            }
+            return null;
+        }
+
+        // Returns false when the node budget is exhausted
+        private boolean expandForward() {
+            Frontier f = forward;
+            int current = f.openSet.poll();
+            double currentLng = f.lng[current];
+            double currentLat = f.lat[current];
+            f.closed[current] = true;
+            counters.expanded++;
+
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                double newLng = currentLng + MOVE_LNG[direction];
+                double newLat = currentLat + MOVE_LAT[direction];
+
+                if (airspace.crossesNoFlyZone(currentLng, currentLat, newLng, newLat)) {
+                    counters.rejectedByNoFlyZone++;
+                    continue;
+                }
+                boolean toInCentral = airspace.isInCentralArea(newLng, newLat);
+                if (f.flag[current] && !toInCentral) {
+                    counters.rejectedByCentralArea++;
+                    continue;
+                }
+                boolean entered = f.flag[current] || toInCentral;
+
+                int i = f.cellI(newLng);
+                int j = f.cellJ(newLat);
+                int node = f.index.get(latticeKey(i, j, entered));
+                double g = f.gCost[current] + 1;
+                if (node == LongIntHashMap.MISSING) {
+                    if (forward.nodeCount + backward.nodeCount >= maxNodes) {
+                        return false;
+                    }
+                    node = f.add(newLng, newLat, current, direction, g, entered, i, j);
+                } else if (!f.closed[node] && g < f.gCost[node]) {
+                    f.reparent(node, newLng, newLat, current, direction, g);
+                } else {
+                    continue;
+                }
+
+                if (f.distanceToTarget(newLng, newLat) < STEP && g < bestCost) {
+                    bestCost = g;
+                    bestForward = node;
+                    bestBackward = -1;
+                }
+                // A path that has entered the central area may only continue
+                // along backward states that stay inside it
+                offer(node, backward.index.get(latticeKey(i, j, true)));
+                if (!entered) {
+                    offer(node, backward.index.get(latticeKey(i, j, false)));
+                }
+            }
+            return true;
+        }
+
+        // Returns false when the node budget is exhausted
+        private boolean expandBackward() {
+            Frontier b = backward;
+            int current = b.openSet.poll();
+            double currentLng = b.lng[current];
+            double currentLat = b.lat[current];
+            b.closed[current] = true;
+            counters.expanded++;
+
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                // The position from which this move reaches the current state
+                double prevLng = currentLng - MOVE_LNG[direction];
+                double prevLat = currentLat - MOVE_LAT[direction];
+
+                if (airspace.crossesNoFlyZone(prevLng, prevLat, currentLng, currentLat)) {
+                    counters.rejectedByNoFlyZone++;
+                    continue;
+                }
+                // Inside the central area the rest of the path must stay inside it
+                boolean fromInCentral = airspace.isInCentralArea(prevLng, prevLat);
+                if (fromInCentral && !b.flag[current]) {
+                    counters.rejectedByCentralArea++;
+                    continue;
+                }
+                boolean staysInside = b.flag[current] && fromInCentral;
+
+                int i = b.cellI(prevLng);
+                int j = b.cellJ(prevLat);
+                int node = b.index.get(latticeKey(i, j, staysInside));
+                double g = b.gCost[current] + 1;
+                if (node == LongIntHashMap.MISSING) {
+                    if (forward.nodeCount + backward.nodeCount >= maxNodes) {
+                        return false;
+                    }
+                    node = b.add(prevLng, prevLat, current, direction, g, staysInside, i, j);
+                } else if (!b.closed[node] && g < b.gCost[node]) {
+                    b.reparent(node, prevLng, prevLat, current, direction, g);
+                } else {
+                    continue;
+                }
+
+                offer(forward.index.get(latticeKey(i, j, false)), node);
+                if (staysInside) {
+                    offer(forward.index.get(latticeKey(i, j, true)), node);
+                }
+            }
+            return true;
+        }
+
+        // Records a join of a forward and a backward state in the same cell
+        private void offer(int forwardNode, int backwardNode) {
+            if (forwardNode == LongIntHashMap.MISSING || backwardNode == LongIntHashMap.MISSING) {
+                return;
+            }
+            double cost = forward.gCost[forwardNode] + backward.gCost[backwardNode];
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestForward = forwardNode;
+                bestBackward = backwardNode;
+            }
+        }
+
+        // Forward path to the join, then the backward moves replayed from
+        // there and checked again; null if the replay leaves the rules
+        private List<LngLat> join() {
+            List<LngLat> path = forward.pathTo(bestForward, start);
+            double lng = forward.lng[bestForward];
+            double lat = forward.lat[bestForward];
+            boolean entered = forward.flag[bestForward];
+            double endLng = end.getLng();
+            double endLat = end.getLat();
+
+            for (int node = bestBackward; node > 0 && distance(lng, lat, endLng, endLat) >= STEP; node = backward.parent[node]) {
+                int direction = backward.direction[node];
+                double nextLng = lng + MOVE_LNG[direction];
+                double nextLat = lat + MOVE_LAT[direction];
+                if (airspace.crossesNoFlyZone(lng, lat, nextLng, nextLat)) {
+                    return null;
+                }
+                boolean inCentral = airspace.isInCentralArea(nextLng, nextLat);
+                if (entered && !inCentral) {
+                    return null;
+                }
+                entered |= inCentral;
+                lng = nextLng;
+                lat = nextLat;
+                path.add(new LngLat(lng, lat));
+            }
+            if (distance(lng, lat, endLng, endLat) >= STEP) {
+                return null;
+            }
+            return withHovers(path);
+        }
+    }
+
+    // Weighted A* that keeps improving its path while time is left, in the
+    // manner of ARA*. States are queued by g + epsilon * h, which reaches a
+    // first path after far fewer expansions than A*; every time a path is
+    // found epsilon is lowered towards 1 and the open set re-ordered. States
+    // that cannot beat the best path so far are pruned, and a cheaper way
+    // into an expanded state opens a fresh copy of it instead of moving it,
+    // which would break the moves to its children. The first path is always
+    // searched for, the time budget only limits the improvement after it.
+    private final class AnytimeSearch {
+        private final LngLat start;
+        private final Frontier forward;
+        private final Counters counters;
+        private final long deadline;
+
+        private int best = -1;
+        private double bestWeight;
+        // Set when the open set can no longer lead to a shorter path
+        private boolean optimal;
+
+        AnytimeSearch(LngLat start, LngLat end, Counters counters) {
+            this.start = start;
+            this.forward = new Frontier(start, end.getLng(), end.getLat());
+            this.counters = counters;
+            this.deadline = System.nanoTime() + timeBudgetNanos;
+            forward.weight = epsilon;
+            forward.add(start.getLng(), start.getLat(), -1, 0, 0, airspace.isInCentralArea(start.getLng(), start.getLat()), 0, 0);
+        }
+
+        List<LngLat> run() {
+            try {
+                search();
+            } finally {
+                counters.created += forward.nodeCount;
+            }
+            if (best < 0) {
+                return null;
+            }
+            counters.bound = bound();
+            return withHovers(forward.pathTo(best, start));
+        }
+
+        private void search() {
+            Frontier f = forward;
+            while (!f.openSet.isEmpty()) {
+                if (best >= 0) {
+                    if ((counters.expanded & 63) == 0 && System.nanoTime() - deadline >= 0) {
+                        return;
+                    }
+                    // With unit weight and h at most one move over the true
+                    // cost, every open state is now at least as long
+                    if (f.weight == 1 && f.openSet.peekKey() >= f.gCost[best] + 1) {
+                        optimal = true;
+                        return;
+                    }
+                }
+
+                int current = f.openSet.poll();
+                f.closed[current] = true;
+                double currentLng = f.lng[current];
+                double currentLat = f.lat[current];
+                double distance = f.distanceToTarget(currentLng, currentLat);
+                if (best >= 0 && f.gCost[current] + movesLeft(distance) >= f.gCost[best]) {
+                    continue;
+                }
+
+                if (distance < STEP) {
+                    best = current;
+                    bestWeight = f.weight;
+                    if (timeBudgetNanos <= 0 || f.weight == 1) {
+                        return;
+                    }
+                    f.reweight(Math.max(1, f.weight - EPSILON_STEP));
+                    continue;
+                }
+
+                counters.expanded++;
+                for (int direction = 0; direction < DIRECTIONS; direction++) {
+                    double newLng = currentLng + MOVE_LNG[direction];
+                    double newLat = currentLat + MOVE_LAT[direction];
+                    double g = f.gCost[current] + 1;
+                    if (best >= 0 && g + movesLeft(f.distanceToTarget(newLng, newLat)) >= f.gCost[best]) {
+                        continue;
+                    }
+
+                    if (airspace.crossesNoFlyZone(currentLng, currentLat, newLng, newLat)) {
+                        counters.rejectedByNoFlyZone++;
+                        continue;
+                    }
+                    boolean toInCentral = airspace.isInCentralArea(newLng, newLat);
+                    if (f.flag[current] && !toInCentral) {
+                        counters.rejectedByCentralArea++;
+                        continue;
+                    }
+                    boolean neighborEntered = f.flag[current] || toInCentral;
+
+                    int i = f.cellI(newLng);
+                    int j = f.cellJ(newLat);
+                    int existing = f.index.get(latticeKey(i, j, neighborEntered));
+                    if (existing == LongIntHashMap.MISSING || (f.closed[existing] && g < f.gCost[existing])) {
+                        if (f.nodeCount >= maxNodes) {
+                            return;
+                        }
+                        f.add(newLng, newLat, current, direction, g, neighborEntered, i, j);
+                        counters.openSetPeak = Math.max(counters.openSetPeak, f.openSet.size());
+                    } else if (!f.closed[existing] && g < f.gCost[existing]) {
+                        f.reparent(existing, newLng, newLat, current, direction, g);
+                    }
+                }
+            }
+        }
+
+        // The weight the path was found with, or its length over the
+        // shortest any open state could still give, whichever is smaller
+        private double bound() {
+            double cost = forward.gCost[best];
+            double lower = forward.lowerBound();
+            if (optimal || lower >= cost) {
+                return 1;
+            }
+            return Math.max(1, Math.min(bestWeight, cost / lower));
+        }
+    }
+
+    // Follows the shortest path over the visibility graph with lattice moves.
+    // Each leg is tracked like a line drawn on a grid: of the two move
+    // directions either side of the leg's bearing, the one ending nearer the
+    // leg is taken, so the path never strays more than a fraction of a move
+    // from it and the graph's margin around the zones absorbs the rest. Every
+    // move is still checked against the airspace, and if one would be
+    // illegal a plain A* search is run instead.
+    private final class VisibilitySearch {
+        private final LngLat start;
+        private final LngLat end;
+        private final Counters counters;
+
+        VisibilitySearch(LngLat start, LngLat end, Counters counters) {
+            this.start = start;
+            this.end = end;
+            this.counters = counters;
+        }
+
+        List<LngLat> run() {
+            VisibilityGraph.Route route = airspace.getVisibilityGraph()
+                    .shortestPath(start.getLng(), start.getLat(), end.getLng(), end.getLat());
+            counters.expanded += route.getSettled();
+            List<LngLat> path = route.getWaypoints() == null ? null : follow(route.getWaypoints());
+            return path != null ? path : new Search(start, end, counters).run();
+        }
+
+        private List<LngLat> follow(double[] waypoints) {
+            List<LngLat> path = new ArrayList<>();
+            path.add(start);
+            double lng = start.getLng();
+            double lat = start.getLat();
+            boolean entered = airspace.isInCentralArea(lng, lat);
+            int legs = waypoints.length / 2 - 1;
+
+            for (int leg = 1; leg <= legs; leg++) {
+                double fromLng = waypoints[2 * leg - 2];
+                double fromLat = waypoints[2 * leg - 1];
+                double toLng = waypoints[2 * leg];
+                double toLat = waypoints[2 * leg + 1];
+                double length = distance(fromLng, fromLat, toLng, toLat);
+                boolean last = leg == legs;
+                if (length == 0 && !last) {
+                    continue;
+                }
+                double ux = length == 0 ? 0 : (toLng - fromLng) / length;
+                double uy = length == 0 ? 0 : (toLat - fromLat) / length;
+
+                double bearing = Math.toDegrees(Math.atan2(uy, ux));
+                if (bearing < 0) {
+                    bearing += 360;
+                }
+                int low = (int) (bearing / ANGLE_STEP) % DIRECTIONS;
+                int high = (low + 1) % DIRECTIONS;
+
+                int budget = (int) (length / STEP) * 2 + DIRECTIONS;
+                while (true) {
+                    double along = (lng - fromLng) * ux + (lat - fromLat) * uy;
+                    double remaining = distance(lng, lat, toLng, toLat);
+                    if (remaining < STEP || (!last && along >= length)) {
+                        break;
+                    }
+                    if (budget-- == 0 || along > length + STEP) {
+                        return null;
+                    }
+
+                    // Off-track distance after each candidate move
+                    double lowOff = Math.abs((lng + MOVE_LNG[low] - fromLng) * uy - (lat + MOVE_LAT[low] - fromLat) * ux);
+                    double highOff = Math.abs((lng + MOVE_LNG[high] - fromLng) * uy - (lat + MOVE_LAT[high] - fromLat) * ux);
+                    int preferred = lowOff <= highOff ? low : high;
+                    int other = preferred == low ? high : low;
+
+                    counters.expanded++;
+                    int direction = preferred;
+                    if (!legal(lng, lat, direction, entered)) {
+                        direction = other;
+                        if (!legal(lng, lat, direction, entered)) {
+                            return null;
+                        }
+                    }
+                    lng += MOVE_LNG[direction];
+                    lat += MOVE_LAT[direction];
+                    entered |= airspace.isInCentralArea(lng, lat);
+                    path.add(new LngLat(lng, lat));
+                }
+            }
+            return withHovers(path);
+        }
+
+        private boolean legal(double lng, double lat, int direction, boolean entered) {
+            double newLng = lng + MOVE_LNG[direction];
+            double newLat = lat + MOVE_LAT[direction];
+            if (airspace.crossesNoFlyZone(lng, lat, newLng, newLat)) {
+                counters.rejectedByNoFlyZone++;
+                return false;
+            }
+            if (entered && !airspace.isInCentralArea(newLng, newLat)) {
+                counters.rejectedByCentralArea++;
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package uk.ac.ed.inf.pathfinding;
+
+import java.util.Arrays;
+
+// Binary min-heap over int ids with O(log n) key updates. Each id's slot in
+// the heap array is tracked so an open node can be found and re-prioritised
+// without scanning the queue.
+final class IndexedMinHeap {
+    private static final int ABSENT = -1;
+
+    private int[] heap;
+    private double[] priority;
+    private int[] slotOf;
+    private int size;
+
+    IndexedMinHeap(int initialCapacity) {
+        heap = new int[initialCapacity];
+        priority = new double[initialCapacity];
+        slotOf = new int[initialCapacity];
+        Arrays.fill(slotOf, ABSENT);
+    }
+
+    boolean isEmpty() { return size == 0; }
+
+    int size() { return size; }
+
+    boolean contains(int id) {
+        return id < slotOf.length && slotOf[id] != ABSENT;
+    }
+
+    void insert(int id, double key) {
+        ensureCapacity(id);
+        priority[id] = key;
+        heap[size] = id;
+        slotOf[id] = size;
+        siftUp(size++);
+    }
+
+    // Lowers the priority of an id already in the heap
+    void decreaseKey(int id, double key) {
+        priority[id] = key;
+        siftUp(slotOf[id]);
+    }
+
+    // Changes the priority of an id already in the heap, either way
+    void update(int id, double key) {
+        if (key < priority[id]) {
+            decreaseKey(id, key);
+            return;
+        }
+        priority[id] = key;
+        siftDown(slotOf[id]);
+    }
+
+    // Priority of the id poll would return, the heap must not be empty
+    double peekKey() {
+        return priority[heap[0]];
+    }
+
+    // Takes every queued id's priority from keys and restores heap order
+    void rebuild(double[] keys) {
+        for (int slot = 0; slot < size; slot++) {
+            priority[heap[slot]] = keys[heap[slot]];
+        }
+        for (int slot = (size >>> 1) - 1; slot >= 0; slot--) {
+            siftDown(slot);
+        }
+    }
+
+    int poll() {
+        int top = heap[0];
+        slotOf[top] = ABSENT;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            slotOf[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int slot) {
+        int id = heap[slot];
+        double key = priority[id];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) >>> 1;
+            int parentId = heap[parentSlot];
+            if (priority[parentId] <= key) {
+                break;
+            }
+            heap[slot] = parentId;
+            slotOf[parentId] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = id;
+        slotOf[id] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int id = heap[slot];
+        double key = priority[id];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && priority[heap[right]] < priority[heap[child]]) {
+                child = right;
+            }
+            if (key <= priority[heap[child]]) {
+                break;
+            }
+            heap[slot] = heap[child];
+            slotOf[heap[slot]] = slot;
+            slot = child;
+        }
+        heap[slot] = id;
+        slotOf[id] = slot;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= slotOf.length || size == heap.length) {
+            int capacity = Math.max(Math.max(id + 1, size + 1), slotOf.length * 2);
+            heap = Arrays.copyOf(heap, capacity);
+            priority = Arrays.copyOf(priority, capacity);
+            int oldLength = slotOf.length;
+            slotOf = Arrays.copyOf(slotOf, capacity);
+            Arrays.fill(slotOf, oldLength, capacity, ABSENT);
+        }
+    }
+}
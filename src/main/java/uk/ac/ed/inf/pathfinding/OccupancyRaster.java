@@ -0,0 +1,112 @@
+package uk.ac.ed.inf.pathfinding;
+
+import java.util.BitSet;
+
+// Bitset raster of the operating area. A cell is flagged if a no-fly zone edge
+// or the central area boundary passes through it; every other cell is known
+// to be clear of zone edges and entirely inside or outside the central area,
+// so most planner checks become one or two bit lookups. Flagged cells, and
+// anything outside the raster, fall back to the exact geometry.
+public final class OccupancyRaster {
+    public static final int OUTSIDE = 0;
+    public static final int INSIDE = 1;
+    public static final int UNKNOWN = -1;
+
+    private final Extent extent;
+    private final BitSet zoneEdgeCells;
+    private final BitSet centralBoundaryCells;
+    private final BitSet centralInsideCells;
+
+    OccupancyRaster(Extent extent, BitSet zoneEdgeCells, BitSet centralBoundaryCells, BitSet centralInsideCells) {
+        this.extent = extent;
+        this.zoneEdgeCells = zoneEdgeCells;
+        this.centralBoundaryCells = centralBoundaryCells;
+        this.centralInsideCells = centralInsideCells;
+    }
+
+    // INSIDE or OUTSIDE when the cell decides it, UNKNOWN otherwise
+    public int centralAreaState(double x, double y) {
+        int cell = extent.cellAt(x, y);
+        if (cell < 0 || centralBoundaryCells.get(cell)) {
+            return UNKNOWN;
+        }
+        return centralInsideCells.get(cell) ? INSIDE : OUTSIDE;
+    }
+
+    // True if no zone edge passes through any cell under the move, in which
+    // case the move cannot cross a no-fly zone
+    public boolean isClearOfZones(double px, double py, double qx, double qy) {
+        int c0 = extent.column(Math.min(px, qx) - Extent.PADDING);
+        int c1 = extent.column(Math.max(px, qx) + Extent.PADDING);
+        int r0 = extent.row(Math.min(py, qy) - Extent.PADDING);
+        int r1 = extent.row(Math.max(py, qy) + Extent.PADDING);
+        if (c0 < 0 || c1 < 0 || r0 < 0 || r1 < 0) {
+            return false;
+        }
+        for (int r = r0; r <= r1; r++) {
+            int next = zoneEdgeCells.nextSetBit(r * extent.columns + c0);
+            if (next >= 0 && next <= r * extent.columns + c1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long memoryBytes() {
+        return (zoneEdgeCells.size() + centralBoundaryCells.size() + centralInsideCells.size()) / 8;
+    }
+
+    public Extent getExtent() { return extent; }
+
+    // The rectangle covered by the raster and its cell size
+    public static final class Extent {
+        // Cells are marked with this much slack so rounding never matters
+        static final double PADDING = 1e-7;
+
+        final double minX;
+        final double minY;
+        final double cellSize;
+        final int columns;
+        final int rows;
+
+        public Extent(double minX, double minY, double maxX, double maxY, double cellSize) {
+            this.minX = minX;
+            this.minY = minY;
+            this.cellSize = cellSize;
+            this.columns = (int) Math.ceil((maxX - minX) / cellSize);
+            this.rows = (int) Math.ceil((maxY - minY) / cellSize);
+        }
+
+        public int getColumns() { return columns; }
+        public int getRows() { return rows; }
+
+        int cellCount() {
+            return columns * rows;
+        }
+
+        // Column index, or -1 outside the raster
+        int column(double x) {
+            double offset = (x - minX) / cellSize;
+            return offset < 0 || offset >= columns ? -1 : (int) offset;
+        }
+
+        int row(double y) {
+            double offset = (y - minY) / cellSize;
+            return offset < 0 || offset >= rows ? -1 : (int) offset;
+        }
+
+        int cellAt(double x, double y) {
+            int c = column(x);
+            int r = row(y);
+            return c < 0 || r < 0 ? -1 : r * columns + c;
+        }
+
+        double cellMinX(int c) { return minX + c * cellSize; }
+        double cellMinY(int r) { return minY + r * cellSize; }
+
+        boolean sameAs(Extent other) {
+            return minX == other.minX && minY == other.minY && cellSize == other.cellSize
+                    && columns == other.columns && rows == other.rows;
+        }
+    }
+}
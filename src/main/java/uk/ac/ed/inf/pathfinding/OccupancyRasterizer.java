@@ -0,0 +1,191 @@
+package uk.ac.ed.inf.pathfinding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.models.NoFlyZone;
+import uk.ac.ed.inf.models.Region;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Builds OccupancyRasters over the Edinburgh operating area. The cells each
+// polygon touches are kept per polygon content hash, so when the zone data
+// changes only the zones that actually changed are rasterized again.
+// Enabled with ilp.planner.raster.enabled=true.
+@Component
+@ConditionalOnProperty(name = "ilp.planner.raster.enabled", havingValue = "true")
+public class OccupancyRasterizer {
+    // Covers every restaurant, Appleton Tower and the known no-fly zones
+    public static final double DEFAULT_MIN_LNG = -3.23;
+    public static final double DEFAULT_MAX_LNG = -3.16;
+    public static final double DEFAULT_MIN_LAT = 55.93;
+    public static final double DEFAULT_MAX_LAT = 55.96;
+    // Smaller than a move, so a move usually touches no more than four cells
+    public static final double DEFAULT_CELL_SIZE = 0.0001;
+
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyRasterizer.class);
+
+    private final OccupancyRaster.Extent extent;
+
+    // Edge cells per zone, and boundary / inside cells of the central area
+    private Map<Long, BitSet> zoneCells = new HashMap<>();
+    private long centralHash;
+    private BitSet[] centralCells;
+
+    private volatile long lastMemoryBytes;
+
+    public OccupancyRasterizer() {
+        this(DEFAULT_MIN_LNG, DEFAULT_MIN_LAT, DEFAULT_MAX_LNG, DEFAULT_MAX_LAT, DEFAULT_CELL_SIZE);
+    }
+
+    @Autowired
+    public OccupancyRasterizer(@Value("${ilp.planner.raster.min-lng:" + DEFAULT_MIN_LNG + "}") double minLng,
+                               @Value("${ilp.planner.raster.min-lat:" + DEFAULT_MIN_LAT + "}") double minLat,
+                               @Value("${ilp.planner.raster.max-lng:" + DEFAULT_MAX_LNG + "}") double maxLng,
+                               @Value("${ilp.planner.raster.max-lat:" + DEFAULT_MAX_LAT + "}") double maxLat,
+                               @Value("${ilp.planner.raster.cell-size:" + DEFAULT_CELL_SIZE + "}") double cellSize) {
+        this.extent = new OccupancyRaster.Extent(minLng, minLat, maxLng, maxLat, cellSize);
+    }
+
+    public synchronized OccupancyRaster rasterize(List<NoFlyZone> noFlyZones, Region centralArea) {
+        Map<Long, BitSet> cells = new HashMap<>();
+        BitSet zoneEdgeCells = new BitSet(extent.cellCount());
+        int rebuilt = 0;
+        for (NoFlyZone zone : noFlyZones) {
+            long hash = Airspace.hashVertices(1, zone.getVertices());
+            BitSet zoneBits = cells.get(hash);
+            if (zoneBits == null) {
+                zoneBits = zoneCells.get(hash);
+            }
+            if (zoneBits == null) {
+                zoneBits = edgeCells(zone.getVertices());
+                rebuilt++;
+            }
+            cells.put(hash, zoneBits);
+            zoneEdgeCells.or(zoneBits);
+        }
+        // Zones that disappeared are dropped with the old map
+        zoneCells = cells;
+
+        long hash = centralArea == null ? 0 : Airspace.hashVertices(1, centralArea.getVertices());
+        if (centralCells == null || hash != centralHash) {
+            centralCells = centralAreaCells(centralArea);
+            centralHash = hash;
+            rebuilt++;
+        }
+
+        OccupancyRaster raster = new OccupancyRaster(extent, zoneEdgeCells, centralCells[0], centralCells[1]);
+        lastMemoryBytes = raster.memoryBytes();
+        logger.info("Occupancy raster {}x{} cells, {} polygons rasterized, {} reused, {} KiB",
+                extent.getColumns(), extent.getRows(), rebuilt, noFlyZones.size() + 1 - rebuilt, lastMemoryBytes / 1024);
+        return raster;
+    }
+
+    // Size of the last raster built, for monitoring
+    public long getLastMemoryBytes() {
+        return lastMemoryBytes;
+    }
+
+    // Cells any edge of the polygon passes through, including the closing edge
+    private BitSet edgeCells(List<LngLat> vertices) {
+        BitSet bits = new BitSet(extent.cellCount());
+        int n = vertices.size();
+        for (int i = 0; i < n; i++) {
+            LngLat a = vertices.get(i);
+            LngLat b = vertices.get((i + 1) % n);
+            markSegment(bits, a.getLng(), a.getLat(), b.getLng(), b.getLat());
+        }
+        return bits;
+    }
+
+    private void markSegment(BitSet bits, double x1, double y1, double x2, double y2) {
+        double pad = OccupancyRaster.Extent.PADDING;
+        int c0 = clampColumn(Math.min(x1, x2) - pad);
+        int c1 = clampColumn(Math.max(x1, x2) + pad);
+        int r0 = clampRow(Math.min(y1, y2) - pad);
+        int r1 = clampRow(Math.max(y1, y2) + pad);
+        for (int r = r0; r <= r1; r++) {
+            double boxMinY = extent.cellMinY(r) - pad;
+            double boxMaxY = extent.cellMinY(r + 1) + pad;
+            for (int c = c0; c <= c1; c++) {
+                double boxMinX = extent.cellMinX(c) - pad;
+                double boxMaxX = extent.cellMinX(c + 1) + pad;
+                if (segmentTouchesBox(x1, y1, x2, y2, boxMinX, boxMinY, boxMaxX, boxMaxY)) {
+                    bits.set(r * extent.columns + c);
+                }
+            }
+        }
+    }
+
+    // [0] holds the cells on the boundary, [1] the cells entirely inside
+    private BitSet[] centralAreaCells(Region centralArea) {
+        BitSet boundary = new BitSet(extent.cellCount());
+        BitSet inside = new BitSet(extent.cellCount());
+        if (centralArea == null) {
+            // Nothing is known, every lookup goes to the exact test
+            boundary.set(0, extent.cellCount());
+            return new BitSet[] { boundary, inside };
+        }
+        boundary = edgeCells(centralArea.getVertices());
+        CompiledPolygon polygon = new CompiledPolygon(centralArea.getVertices());
+        // Cells outside the bounding box are outside, the rest are decided by their centre
+        int c0 = clampColumn(polygon.getMinX());
+        int c1 = clampColumn(polygon.getMaxX());
+        int r0 = clampRow(polygon.getMinY());
+        int r1 = clampRow(polygon.getMaxY());
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * extent.columns + c;
+                if (!boundary.get(cell) && polygon.contains(extent.cellMinX(c) + extent.cellSize / 2, extent.cellMinY(r) + extent.cellSize / 2)) {
+                    inside.set(cell);
+                }
+            }
+        }
+        return new BitSet[] { boundary, inside };
+    }
+
+    private int clampColumn(double x) {
+        int c = (int) Math.floor((x - extent.minX) / extent.cellSize);
+        return Math.max(0, Math.min(extent.columns - 1, c));
+    }
+
+    private int clampRow(double y) {
+        int r = (int) Math.floor((y - extent.minY) / extent.cellSize);
+        return Math.max(0, Math.min(extent.rows - 1, r));
+    }
+
+    // Liang-Barsky clipping of the segment against the box
+    static boolean segmentTouchesBox(double x1, double y1, double x2, double y2,
+                                     double minX, double minY, double maxX, double maxY) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double[] range = { 0, 1 };
+        return clip(-dx, x1 - minX, range) && clip(dx, maxX - x1, range)
+                && clip(-dy, y1 - minY, range) && clip(dy, maxY - y1, range);
+    }
+
+    private static boolean clip(double p, double q, double[] range) {
+        if (p == 0) {
+            return q >= 0;
+        }
+        double r = q / p;
+        if (p < 0) {
+            if (r > range[1]) {
+                return false;
+            }
+            range[0] = Math.max(range[0], r);
+        } else {
+            if (r < range[0]) {
+                return false;
+            }
+            range[1] = Math.min(range[1], r);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,23 @@
+package uk.ac.ed.inf.pathfinding;
+
+import java.util.Locale;
+
+// Search used by GridPathPlanner. ASTAR searches forward from the start only;
+// BIDIRECTIONAL also searches backward from the end and joins the two
+// searches where they meet, which expands fewer states on long routes around
+// no-fly zones where the straight line heuristic is weak. VISIBILITY finds
+// the geometric shortest path over the airspace's visibility graph and
+// follows it with lattice moves, only stepping once along each leg. ANYTIME
+// is weighted A*, whose path is within a chosen factor of the shortest and is
+// improved for as long as a time budget allows.
+public enum PlannerAlgorithm {
+    ASTAR,
+    BIDIRECTIONAL,
+    VISIBILITY,
+    ANYTIME;
+
+    // Names are accepted in any case, as in ilp.planner.algorithm=bidirectional
+    public static PlannerAlgorithm parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,231 @@
+package uk.ac.ed.inf.pathfinding;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.inf.models.LngLat;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Process wide cache of planned routes. Entries are keyed by the quantized
+// start and end and a content hash of the no-fly zones and central area, so a
+// change to the airspace never serves an old route. Pairs with no route are
+// cached too, so an unreachable pair is not searched again. Eviction is LRU,
+// bounded both by entry count and by the total number of coordinates held,
+// and concurrent misses for the same key share one planner run.
+@Component
+public class RouteCache {
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+    public static final long DEFAULT_MAX_WEIGHT = 1_000_000;
+
+    // Start and end positions closer than this share a cache entry
+    static final double QUANTUM = 1e-7;
+
+    // Cached in place of the route for a pair the planner found none for
+    private static final List<LngLat> NO_ROUTE = Collections.emptyList();
+
+    private final int maxEntries;
+    private final long maxWeight;
+
+    private final LinkedHashMap<RouteKey, List<LngLat>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long airspaceHash;
+    // Set once the airspace is followed through setCurrentAirspace
+    private boolean followingSnapshots;
+
+    private final Map<RouteKey, CompletableFuture<List<LngLat>>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public RouteCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+    }
+
+    @Autowired
+    public RouteCache(@Value("${ilp.route-cache.max-entries:" + DEFAULT_MAX_ENTRIES + "}") int maxEntries,
+                      @Value("${ilp.route-cache.max-weight:" + DEFAULT_MAX_WEIGHT + "}") long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    // Returns the cached route or runs the planner. The returned list is
+    // shared between callers and therefore unmodifiable; a null route (no
+    // path found) is cached as well.
+    public List<LngLat> getOrCompute(LngLat start, LngLat end, Airspace airspace, Supplier<List<LngLat>> planner) {
+        return getOrCompute(start, end, airspace, PlannerAlgorithm.ASTAR, planner);
+    }
+
+    // As above, with routes planned by different algorithms cached apart
+    public List<LngLat> getOrCompute(LngLat start, LngLat end, Airspace airspace, PlannerAlgorithm algorithm,
+                                     Supplier<List<LngLat>> planner) {
+        RouteKey key = new RouteKey(start, end, airspace.getContentHash(), algorithm);
+
+        List<LngLat> cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return cached == NO_ROUTE ? null : cached;
+        }
+
+        CompletableFuture<List<LngLat>> mine = new CompletableFuture<>();
+        CompletableFuture<List<LngLat>> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.join();
+        }
+
+        try {
+            // Another caller may have finished between the lookup and claiming the key
+            List<LngLat> late = lookup(key);
+            if (late != null) {
+                hits.increment();
+                late = late == NO_ROUTE ? null : late;
+                mine.complete(late);
+                return late;
+            }
+            misses.increment();
+            List<LngLat> path = planner.get();
+            List<LngLat> shared = path == null ? null : Collections.unmodifiableList(path);
+            store(key, shared == null ? NO_ROUTE : shared);
+            mine.complete(shared);
+            return shared;
+        } catch (RuntimeException | Error e) {
+            // Coalesced callers are waiting on mine, they must see the failure too
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private synchronized List<LngLat> lookup(RouteKey key) {
+        return entries.get(key);
+    }
+
+    // Called with the airspace of every new reference data snapshot. Routes
+    // for other airspaces are dropped, and a plan that finishes against one
+    // after this is not stored, so it cannot push out the new routes.
+    public synchronized void setCurrentAirspace(Airspace airspace) {
+        if (airspace.getContentHash() != airspaceHash) {
+            invalidate(airspace.getContentHash());
+        }
+        followingSnapshots = true;
+    }
+
+    private synchronized void store(RouteKey key, List<LngLat> path) {
+        if (key.airspaceHash != airspaceHash) {
+            if (followingSnapshots) {
+                // Planned against an airspace that has since been replaced
+                return;
+            }
+            // Not told about snapshots, so the latest airspace planned against wins
+            invalidate(key.airspaceHash);
+        }
+        List<LngLat> previous = entries.put(key, path);
+        if (previous != null) {
+            weight -= previous.size();
+        }
+        weight += path.size();
+
+        Iterator<Map.Entry<RouteKey, List<LngLat>>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+            Map.Entry<RouteKey, List<LngLat>> entry = eldest.next();
+            weight -= entry.getValue().size();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    // Zone data changed, routes planned against the old airspace are useless
+    private void invalidate(long newAirspaceHash) {
+        if (!entries.isEmpty()) {
+            invalidations.increment();
+        }
+        entries.clear();
+        weight = 0;
+        airspaceHash = newAirspaceHash;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), coalesced.sum(), evictions.sum(), invalidations.sum(), entries.size(), weight);
+    }
+
+    private static final class RouteKey {
+        private final long startLng;
+        private final long startLat;
+        private final long endLng;
+        private final long endLat;
+        private final long airspaceHash;
+        private final PlannerAlgorithm algorithm;
+
+        RouteKey(LngLat start, LngLat end, long airspaceHash, PlannerAlgorithm algorithm) {
+            this.startLng = Math.round(start.getLng() / QUANTUM);
+            this.startLat = Math.round(start.getLat() / QUANTUM);
+            this.endLng = Math.round(end.getLng() / QUANTUM);
+            this.endLat = Math.round(end.getLat() / QUANTUM);
+            this.airspaceHash = airspaceHash;
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RouteKey)) {
+                return false;
+            }
+            RouteKey other = (RouteKey) obj;
+            return startLng == other.startLng && startLat == other.startLat
+                    && endLng == other.endLng && endLat == other.endLat
+                    && airspaceHash == other.airspaceHash && algorithm == other.algorithm;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = startLng;
+            h = h * 31 + startLat;
+            h = h * 31 + endLng;
+            h = h * 31 + endLat;
+            h = h * 31 + airspaceHash;
+            h = h * 31 + algorithm.ordinal();
+            return Long.hashCode(h);
+        }
+    }
+
+    // Counters for dashboards, see /routeCacheStats
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long coalesced;
+        private final long evictions;
+        private final long invalidations;
+        private final int size;
+        private final long weight;
+
+        Stats(long hits, long misses, long coalesced, long evictions, long invalidations, int size, long weight) {
+            this.hits = hits;
+            this.misses = misses;
+            this.coalesced = coalesced;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.size = size;
+            this.weight = weight;
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getCoalesced() { return coalesced; }
+        public long getEvictions() { return evictions; }
+        public long getInvalidations() { return invalidations; }
+        public int getSize() { return size; }
+        public long getWeight() { return weight; }
+    }
+}
@@ -0,0 +1,105 @@
+package uk.ac.ed.inf.pathfinding;
+
+import uk.ac.ed.inf.models.LngLat;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Precomputed routes from a fixed set of start points to one destination,
+// planned against one airspace. The route back from the destination is the
+// outbound route reversed. Lookups are a scan over the start points, which
+// is a handful of restaurants, and return shared unmodifiable lists.
+public final class RouteTable {
+    private final long airspaceHash;
+    private final LngLat destination;
+    private final long[] startKeys;
+    private final List<List<LngLat>> outbound;
+    private final List<List<LngLat>> inbound;
+
+    // routes.get(i) is the planned route from starts.get(i) to destination;
+    // starts without a route are left out. Routes are kept as given, not copied.
+    public RouteTable(long airspaceHash, LngLat destination, List<LngLat> starts, List<List<LngLat>> routes) {
+        this.airspaceHash = airspaceHash;
+        this.destination = destination;
+        this.startKeys = new long[starts.size() * 2];
+        this.outbound = new ArrayList<>(starts.size());
+        this.inbound = new ArrayList<>(starts.size());
+        for (int i = 0; i < starts.size(); i++) {
+            startKeys[2 * i] = quantize(starts.get(i).getLng());
+            startKeys[2 * i + 1] = quantize(starts.get(i).getLat());
+            List<LngLat> route = Collections.unmodifiableList(routes.get(i));
+            outbound.add(route);
+            inbound.add(new Reversed(route));
+        }
+    }
+
+    public long getAirspaceHash() { return airspaceHash; }
+    public LngLat getDestination() { return destination; }
+    public int size() { return outbound.size(); }
+
+    // The stored route between start and end in either direction, or null if
+    // the table does not cover it
+    public List<LngLat> lookup(LngLat start, LngLat end, Airspace airspace) {
+        if (airspace.getContentHash() != airspaceHash) {
+            return null;
+        }
+        if (samePoint(end, destination)) {
+            int index = indexOf(start);
+            return index < 0 ? null : outbound.get(index);
+        }
+        if (samePoint(start, destination)) {
+            int index = indexOf(end);
+            return index < 0 ? null : inbound.get(index);
+        }
+        return null;
+    }
+
+    public boolean covers(LngLat start) {
+        return indexOf(start) >= 0;
+    }
+
+    private int indexOf(LngLat point) {
+        long lng = quantize(point.getLng());
+        long lat = quantize(point.getLat());
+        for (int i = 0; i < outbound.size(); i++) {
+            if (startKeys[2 * i] == lng && startKeys[2 * i + 1] == lat) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean samePoint(LngLat a, LngLat b) {
+        return quantize(a.getLng()) == quantize(b.getLng()) && quantize(a.getLat()) == quantize(b.getLat());
+    }
+
+    // Same resolution as the route cache keys
+    private static long quantize(double degrees) {
+        return Math.round(degrees / RouteCache.QUANTUM);
+    }
+
+    // The outbound routes, in start point order, for writing the table out
+    public List<List<LngLat>> getRoutes() {
+        return Collections.unmodifiableList(outbound);
+    }
+
+    // A reversed view, so the return route costs no extra memory
+    private static final class Reversed extends AbstractList<LngLat> {
+        private final List<LngLat> route;
+
+        Reversed(List<LngLat> route) {
+            this.route = route;
+        }
+
+        @Override
+        public LngLat get(int index) {
+            return route.get(route.size() - 1 - index);
+        }
+
+        @Override
+        public int size() {
+            return route.size();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package uk.ac.ed.inf.pathfinding;
+
+// What one planner run did, filled in by GridPathPlanner.plan for metrics
+public final class SearchStats {
+    int nodesExpanded;
+    int nodesCreated;
+    int openSetPeak;
+    int rejectedByNoFlyZone;
+    int rejectedByCentralArea;
+    int pathLength;
+    double suboptimalityBound;
+
+    public int getNodesExpanded() { return nodesExpanded; }
+    public int getNodesCreated() { return nodesCreated; }
+    public int getOpenSetPeak() { return openSetPeak; }
+    public int getRejectedByNoFlyZone() { return rejectedByNoFlyZone; }
+    public int getRejectedByCentralArea() { return rejectedByCentralArea; }
+
+    // Number of points in the returned path, 0 if none was found
+    public int getPathLength() { return pathLength; }
+
+    // The path is at most this many times as long as the shortest one; 1 for
+    // A*, 0 when no path was found or the algorithm gives no bound
+    public double getSuboptimalityBound() { return suboptimalityBound; }
+}
@@ -0,0 +1,359 @@
+package uk.ac.ed.inf.pathfinding;
+
+import uk.ac.ed.inf.models.LngLat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Visibility graph for geometric shortest paths around the no-fly zones. The
+// zones are inflated by MARGIN and the convex corners of the inflated zones
+// are the nodes, together with the reflex corners of the central area pushed
+// inwards, so a path can bend around the inside of a concave central area.
+// Two nodes are joined when the straight segment between them clears every
+// inflated zone. The margin leaves room for the lattice moves that later
+// approximate each straight leg. Built once per Airspace and read-only
+// afterwards; the start and end of a request are connected per search.
+final class VisibilityGraph {
+    // Clearance kept from the zones, more than a lattice path strays from a leg
+    static final double MARGIN = GridPathPlanner.STEP;
+
+    // Legs are tested against zones inflated slightly less than the nodes
+    // are placed, so a leg running along an inflated edge between two
+    // neighbouring corners is not taken for one cutting through the zone
+    private static final double OBSTACLE_MARGIN = 0.9 * MARGIN;
+
+    // Miters of sharp corners are cut at this many margins
+    private static final double MAX_MITER = 3;
+
+    private final Airspace airspace;
+
+    // Zones inflated by OBSTACLE_MARGIN, as rings of x, y pairs
+    private final double[][] obstacles;
+
+    private final int nodeCount;
+    private final double[] x;
+    private final double[] y;
+    private final boolean[] inCentral;
+    private final boolean[][] visible;
+    private final boolean[][] crossesCentral;
+
+    VisibilityGraph(Airspace airspace, List<List<LngLat>> zones, List<LngLat> centralArea) {
+        this.airspace = airspace;
+
+        List<double[]> rings = new ArrayList<>();
+        List<double[]> nodes = new ArrayList<>();
+        for (List<LngLat> zone : zones) {
+            double[] ring = ring(zone);
+            if (ring == null) {
+                continue;
+            }
+            double[] offset = new double[ring.length];
+            boolean[] convex = new boolean[ring.length / 2];
+            offsetRing(ring, MARGIN, offset, convex);
+            double[] obstacle = new double[ring.length];
+            offsetRing(ring, OBSTACLE_MARGIN, obstacle, convex);
+            rings.add(obstacle);
+            for (int i = 0; i < convex.length; i++) {
+                if (convex[i]) {
+                    nodes.add(new double[]{offset[2 * i], offset[2 * i + 1]});
+                }
+            }
+        }
+        obstacles = rings.toArray(new double[0][]);
+
+        double[] central = ring(centralArea);
+        if (central != null) {
+            double[] offset = new double[central.length];
+            boolean[] convex = new boolean[central.length / 2];
+            offsetRing(central, -MARGIN, offset, convex);
+            for (int i = 0; i < convex.length; i++) {
+                if (!convex[i]) {
+                    nodes.add(new double[]{offset[2 * i], offset[2 * i + 1]});
+                }
+            }
+        }
+
+        // Corners swallowed by another inflated zone can never be reached
+        nodes.removeIf(node -> insideObstacle(node[0], node[1]) >= 0);
+
+        nodeCount = nodes.size();
+        x = new double[nodeCount];
+        y = new double[nodeCount];
+        inCentral = new boolean[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            x[i] = nodes.get(i)[0];
+            y[i] = nodes.get(i)[1];
+            inCentral[i] = airspace.isInCentralArea(x[i], y[i]);
+        }
+        visible = new boolean[nodeCount][nodeCount];
+        crossesCentral = new boolean[nodeCount][nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            for (int j = i + 1; j < nodeCount; j++) {
+                visible[i][j] = visible[j][i] = clear(x[i], y[i], x[j], y[j], -1, -1);
+                crossesCentral[i][j] = crossesCentral[j][i] = airspace.crossesCentralBoundary(x[i], y[i], x[j], y[j]);
+            }
+        }
+    }
+
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    // Shortest sequence of straight legs from start to end obeying the
+    // central area rule, as x, y pairs including both ends, or null
+    Route shortestPath(double startX, double startY, double endX, double endY) {
+        // Graph nodes first, then the start and the end
+        int n = nodeCount + 2;
+        int startNode = nodeCount;
+        int endNode = nodeCount + 1;
+        double[] px = Arrays.copyOf(x, n);
+        double[] py = Arrays.copyOf(y, n);
+        px[startNode] = startX;
+        py[startNode] = startY;
+        px[endNode] = endX;
+        py[endNode] = endY;
+        boolean[] in = Arrays.copyOf(inCentral, n);
+        in[startNode] = airspace.isInCentralArea(startX, startY);
+        in[endNode] = airspace.isInCentralArea(endX, endY);
+
+        // Inflated zones around the start or end themselves are ignored for
+        // their own legs, a restaurant may well be closer than MARGIN to a zone
+        int startZone = insideObstacle(startX, startY);
+        int endZone = insideObstacle(endX, endY);
+        boolean[][] visibleFrom = new boolean[2][n];
+        boolean[][] crossesFrom = new boolean[2][n];
+        for (int k = 0; k < 2; k++) {
+            int node = startNode + k;
+            for (int v = 0; v < n; v++) {
+                if (v == node) {
+                    continue;
+                }
+                visibleFrom[k][v] = clear(px[node], py[node], px[v], py[v], startZone, endZone);
+                crossesFrom[k][v] = airspace.crossesCentralBoundary(px[node], py[node], px[v], py[v]);
+            }
+        }
+
+        // Dijkstra over (node, entered central area) states, the graph is small
+        int states = 2 * n;
+        double[] dist = new double[states];
+        int[] previous = new int[states];
+        boolean[] done = new boolean[states];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+        int first = 2 * startNode + (in[startNode] ? 1 : 0);
+        dist[first] = 0;
+        int settled = 0;
+
+        while (true) {
+            int current = -1;
+            for (int s = 0; s < states; s++) {
+                if (!done[s] && dist[s] < Double.POSITIVE_INFINITY && (current < 0 || dist[s] < dist[current])) {
+                    current = s;
+                }
+            }
+            if (current < 0) {
+                return new Route(null, settled);
+            }
+            done[current] = true;
+            settled++;
+            int u = current / 2;
+            boolean entered = (current & 1) == 1;
+            if (u == endNode) {
+                return new Route(waypoints(current, previous, px, py), settled);
+            }
+
+            for (int v = 0; v < n; v++) {
+                if (v == u) {
+                    continue;
+                }
+                boolean canSee;
+                boolean crosses;
+                if (u >= nodeCount) {
+                    canSee = visibleFrom[u - nodeCount][v];
+                    crosses = crossesFrom[u - nodeCount][v];
+                } else if (v >= nodeCount) {
+                    canSee = visibleFrom[v - nodeCount][u];
+                    crosses = crossesFrom[v - nodeCount][u];
+                } else {
+                    canSee = visible[u][v];
+                    crosses = crossesCentral[u][v];
+                }
+                if (!canSee) {
+                    continue;
+                }
+                // Once inside the central area a leg must stay inside it, and
+                // a leg between two outside points must not cut through it
+                if (entered ? !in[v] || crosses : !in[v] && crosses) {
+                    continue;
+                }
+                int next = 2 * v + (entered || in[v] ? 1 : 0);
+                double d = dist[current] + Math.hypot(px[v] - px[u], py[v] - py[u]);
+                if (!done[next] && d < dist[next]) {
+                    dist[next] = d;
+                    previous[next] = current;
+                }
+            }
+        }
+    }
+
+    private static double[] waypoints(int goal, int[] previous, double[] px, double[] py) {
+        int count = 0;
+        for (int s = goal; s >= 0; s = previous[s]) {
+            count++;
+        }
+        double[] points = new double[2 * count];
+        int i = count;
+        for (int s = goal; s >= 0; s = previous[s]) {
+            i--;
+            points[2 * i] = px[s / 2];
+            points[2 * i + 1] = py[s / 2];
+        }
+        return points;
+    }
+
+    // A leg is clear if it misses the real zones and does not cut into an
+    // inflated one, apart from the ones around its own ends
+    private boolean clear(double ax, double ay, double bx, double by, int ignoreA, int ignoreB) {
+        if (airspace.crossesNoFlyZone(ax, ay, bx, by)) {
+            return false;
+        }
+        for (int z = 0; z < obstacles.length; z++) {
+            if (z != ignoreA && z != ignoreB && cutsRing(obstacles[z], ax, ay, bx, by)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Index of the inflated zone containing the point, or -1
+    private int insideObstacle(double px, double py) {
+        for (int z = 0; z < obstacles.length; z++) {
+            if (contains(obstacles[z], px, py)) {
+                return z;
+            }
+        }
+        return -1;
+    }
+
+    // True if the segment properly crosses an edge of the ring or runs
+    // through its inside; touching a corner or sliding along an edge is fine
+    private static boolean cutsRing(double[] ring, double ax, double ay, double bx, double by) {
+        int n = ring.length / 2;
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1) % n;
+            double cx = ring[2 * i];
+            double cy = ring[2 * i + 1];
+            double dx = ring[2 * j];
+            double dy = ring[2 * j + 1];
+            double o1 = orientation(ax, ay, bx, by, cx, cy);
+            double o2 = orientation(ax, ay, bx, by, dx, dy);
+            double o3 = orientation(cx, cy, dx, dy, ax, ay);
+            double o4 = orientation(cx, cy, dx, dy, bx, by);
+            if (o1 * o2 < 0 && o3 * o4 < 0) {
+                return true;
+            }
+        }
+        return contains(ring, (ax + bx) / 2, (ay + by) / 2);
+    }
+
+    private static double orientation(double ax, double ay, double bx, double by, double cx, double cy) {
+        return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+    }
+
+    // Even-odd ray casting
+    private static boolean contains(double[] ring, double px, double py) {
+        int n = ring.length / 2;
+        boolean inside = false;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double xi = ring[2 * i];
+            double yi = ring[2 * i + 1];
+            double xj = ring[2 * j];
+            double yj = ring[2 * j + 1];
+            if ((yi > py) != (yj > py) && px < (xj - xi) * (py - yi) / (yj - yi) + xi) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    // Vertices as x, y pairs without a repeated closing vertex, null if
+    // there are too few to enclose anything
+    private static double[] ring(List<LngLat> vertices) {
+        if (vertices == null) {
+            return null;
+        }
+        int n = vertices.size();
+        if (n > 1 && vertices.get(0).getLng() == vertices.get(n - 1).getLng()
+                && vertices.get(0).getLat() == vertices.get(n - 1).getLat()) {
+            n--;
+        }
+        if (n < 3) {
+            return null;
+        }
+        double[] ring = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            ring[2 * i] = vertices.get(i).getLng();
+            ring[2 * i + 1] = vertices.get(i).getLat();
+        }
+        return ring;
+    }
+
+    // Moves every corner outwards (inwards for a negative distance) along
+    // its bisector so both adjacent edges end up the given distance away,
+    // and marks the corners that are convex
+    private static void offsetRing(double[] ring, double distance, double[] offset, boolean[] convex) {
+        int n = ring.length / 2;
+        double area = 0;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            area += ring[2 * j] * ring[2 * i + 1] - ring[2 * i] * ring[2 * j + 1];
+        }
+        double orientation = Math.signum(area);
+
+        for (int i = 0; i < n; i++) {
+            int prev = (i + n - 1) % n;
+            int next = (i + 1) % n;
+            double e1x = ring[2 * i] - ring[2 * prev];
+            double e1y = ring[2 * i + 1] - ring[2 * prev + 1];
+            double e2x = ring[2 * next] - ring[2 * i];
+            double e2y = ring[2 * next + 1] - ring[2 * i + 1];
+            convex[i] = (e1x * e2y - e1y * e2x) * orientation > 0;
+
+            // Outward normals of the two edges
+            double l1 = Math.hypot(e1x, e1y);
+            double l2 = Math.hypot(e2x, e2y);
+            double n1x = orientation * e1y / l1;
+            double n1y = -orientation * e1x / l1;
+            double n2x = orientation * e2y / l2;
+            double n2y = -orientation * e2x / l2;
+            double bx = n1x + n2x;
+            double by = n1y + n2y;
+            double bl = Math.hypot(bx, by);
+            if (bl < 1e-12) {
+                // Edges double back on themselves, push along the first normal
+                bx = n1x;
+                by = n1y;
+                bl = 1;
+            }
+            bx /= bl;
+            by /= bl;
+            double miter = distance / Math.max(bx * n1x + by * n1y, 1 / MAX_MITER);
+            offset[2 * i] = ring[2 * i] + bx * miter;
+            offset[2 * i + 1] = ring[2 * i + 1] + by * miter;
+        }
+    }
+
+    // Result of one search: the legs found, if any, and the number of graph
+    // states settled on the way
+    static final class Route {
+        private final double[] waypoints;
+        private final int settled;
+
+        Route(double[] waypoints, int settled) {
+            this.waypoints = waypoints;
+            this.settled = settled;
+        }
+
+        double[] getWaypoints() { return waypoints; }
+        int getSettled() { return settled; }
+    }
+}
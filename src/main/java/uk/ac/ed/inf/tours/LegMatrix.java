@@ -0,0 +1,48 @@
+package uk.ac.ed.inf.tours;
+
+import uk.ac.ed.inf.models.LngLat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Planned legs between the locations of one tour planning run, Appleton
+// Tower being location 0. A leg from a restaurant follows the central area
+// rule from its start, as the drone is carrying orders from the first pickup
+// on; the flight out of Appleton Tower is empty and is the leg back to it
+// flown in reverse.
+final class LegMatrix {
+    // Moves of a leg that has no path, small enough to add up in a long
+    static final int UNREACHABLE = 1_000_000_000;
+
+    private final List<List<List<LngLat>>> paths;
+
+    LegMatrix(int locations) {
+        paths = new ArrayList<>(locations);
+        for (int i = 0; i < locations; i++) {
+            paths.add(new ArrayList<>(Collections.nCopies(locations, null)));
+        }
+    }
+
+    int size() {
+        return paths.size();
+    }
+
+    // Only called for legs that do not start at Appleton Tower, each slot once
+    void set(int from, int to, List<LngLat> path) {
+        paths.get(from).set(to, path);
+    }
+
+    int moves(int from, int to) {
+        List<LngLat> path = from == 0 ? paths.get(to).get(0) : paths.get(from).get(to);
+        return path == null ? UNREACHABLE : path.size() - 1;
+    }
+
+    List<LngLat> path(int from, int to) {
+        if (from != 0) {
+            return paths.get(from).get(to);
+        }
+        List<LngLat> outbound = new ArrayList<>(paths.get(to).get(0));
+        Collections.reverse(outbound);
+        return outbound;
+    }
+}
@@ -0,0 +1,157 @@
+package uk.ac.ed.inf.tours;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Clarke-Wright savings over asymmetric leg costs. Every stop starts in a
+// tour of its own, then tours are joined end to start in order of decreasing
+// saving c(i, 0) + c(0, j) - shape * c(i, j) while the joined tour saves
+// moves and stays within the move budget and order capacity. Each tour is
+// finally reordered by 2-opt. The shape weighs the leg joined in against the
+// two Appleton Tower legs it replaces, so different shapes give different
+// groupings of the same stops.
+final class SavingsSolver {
+    private final LegMatrix legs;
+    private final int[] stopLocation;
+    private final int[] stopOrders;
+    private final int moveBudget;
+    private final int capacity;
+
+    // Every stop must be reachable within the budget on its own
+    SavingsSolver(LegMatrix legs, int[] stopLocation, int[] stopOrders, int moveBudget, int capacity) {
+        this.legs = legs;
+        this.stopLocation = stopLocation;
+        this.stopOrders = stopOrders;
+        this.moveBudget = moveBudget;
+        this.capacity = capacity;
+    }
+
+    // Tours as stop indices in flying order
+    List<int[]> solve(double shape) {
+        int n = stopLocation.length;
+        List<List<Integer>> tours = new ArrayList<>(n);
+        int[] tourOf = new int[n];
+        int[] orders = new int[n];
+        long[] moves = new long[n];
+        for (int stop = 0; stop < n; stop++) {
+            tours.add(new ArrayList<>(List.of(stop)));
+            tourOf[stop] = stop;
+            orders[stop] = stopOrders[stop];
+            moves[stop] = (long) toDepot(stop) + fromDepot(stop);
+        }
+
+        for (long pair : savings(shape)) {
+            int i = (int) (pair >>> 32);
+            int j = (int) pair;
+            int a = tourOf[i];
+            int b = tourOf[j];
+            List<Integer> head = tours.get(a);
+            List<Integer> tail = tours.get(b);
+            if (a == b || head.get(head.size() - 1) != i || tail.get(0) != j || orders[a] + orders[b] > capacity) {
+                continue;
+            }
+            long saved = (long) toDepot(i) + fromDepot(j) - leg(i, j);
+            if (saved <= 0 || moves[a] + moves[b] - saved > moveBudget) {
+                continue;
+            }
+            head.addAll(tail);
+            for (int stop : tail) {
+                tourOf[stop] = a;
+            }
+            tours.set(b, null);
+            orders[a] += orders[b];
+            moves[a] += moves[b] - saved;
+        }
+
+        List<int[]> result = new ArrayList<>();
+        for (List<Integer> tour : tours) {
+            if (tour != null) {
+                result.add(twoOpt(tour.stream().mapToInt(Integer::intValue).toArray()));
+            }
+        }
+        return result;
+    }
+
+    // Moves of a tour out of Appleton Tower, through its stops and back
+    long moves(int[] tour) {
+        long total = fromDepot(tour[0]);
+        for (int k = 1; k < tour.length; k++) {
+            total += leg(tour[k - 1], tour[k]);
+        }
+        return total + toDepot(tour[tour.length - 1]);
+    }
+
+    long totalMoves(List<int[]> tours) {
+        long total = 0;
+        for (int[] tour : tours) {
+            total += moves(tour);
+        }
+        return total;
+    }
+
+    // Stop pairs packed as i << 32 | j, by decreasing saving
+    private long[] savings(double shape) {
+        int n = stopLocation.length;
+        int count = 0;
+        long[] pairs = new long[n * (n - 1)];
+        double[] saving = new double[n * (n - 1)];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i != j && leg(i, j) < LegMatrix.UNREACHABLE) {
+                    pairs[count] = (long) i << 32 | j;
+                    saving[count++] = toDepot(i) + fromDepot(j) - shape * leg(i, j);
+                }
+            }
+        }
+        Integer[] order = new Integer[count];
+        for (int k = 0; k < count; k++) {
+            order[k] = k;
+        }
+        // Ties keep stop order so every run gives the same tours
+        Arrays.sort(order, (x, y) -> Double.compare(saving[y], saving[x]));
+        long[] sorted = new long[count];
+        for (int k = 0; k < count; k++) {
+            sorted[k] = pairs[order[k]];
+        }
+        return sorted;
+    }
+
+    // Reverses stretches of the tour while that saves moves. Joined tours
+    // are within the budget, so a shorter one is as well.
+    private int[] twoOpt(int[] tour) {
+        long best = moves(tour);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int from = 0; from < tour.length - 1; from++) {
+                for (int to = from + 1; to < tour.length; to++) {
+                    int[] candidate = tour.clone();
+                    for (int x = from, y = to; x < y; x++, y--) {
+                        candidate[x] = tour[y];
+                        candidate[y] = tour[x];
+                    }
+                    long candidateMoves = moves(candidate);
+                    if (candidateMoves < best) {
+                        tour = candidate;
+                        best = candidateMoves;
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return tour;
+    }
+
+    private int leg(int fromStop, int toStop) {
+        return legs.moves(stopLocation[fromStop], stopLocation[toStop]);
+    }
+
+    private int fromDepot(int stop) {
+        return legs.moves(0, stopLocation[stop]);
+    }
+
+    private int toDepot(int stop) {
+        return legs.moves(stopLocation[stop], 0);
+    }
+}
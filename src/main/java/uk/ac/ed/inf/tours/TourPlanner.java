@@ -0,0 +1,171 @@
+package uk.ac.ed.inf.tours;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.inf.batch.BatchExecutor;
+import uk.ac.ed.inf.data.RouteTableStore;
+import uk.ac.ed.inf.models.DeliveryConstants;
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.models.Restaurant;
+import uk.ac.ed.inf.models.Tour;
+import uk.ac.ed.inf.models.TourPlan;
+import uk.ac.ed.inf.pathfinding.Airspace;
+import uk.ac.ed.inf.pathfinding.GridPathPlanner;
+import uk.ac.ed.inf.pathfinding.PlannerAlgorithm;
+import uk.ac.ed.inf.pathfinding.RouteCache;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
+
+// Batches pickups into multi-stop drone tours from Appleton Tower. Every leg
+// between the restaurants and Appleton Tower is planned once, in parallel,
+// through the route table and route cache, and the tours are then built from
+// the leg lengths alone by a SavingsSolver. Each shape of the savings is a
+// candidate grouping, all are solved in parallel and the plan with the
+// fewest total moves is kept.
+@Component
+public class TourPlanner {
+    public static final int DEFAULT_MOVE_BUDGET = 2000;
+    public static final int DEFAULT_MAX_ORDERS_PER_TOUR = 4;
+
+    // Savings shapes tried for every plan
+    static final double[] SHAPES = {0.6, 0.8, 1.0, 1.2, 1.4, 1.6, 1.8, 2.0};
+
+    private final RouteCache routeCache;
+    private final RouteTableStore routeTableStore;
+    private final BatchExecutor batchExecutor;
+    private final int defaultMoveBudget;
+    private final int maxOrdersPerTour;
+
+    public TourPlanner() {
+        this(new RouteCache(), new RouteTableStore(), new BatchExecutor(), DEFAULT_MOVE_BUDGET, DEFAULT_MAX_ORDERS_PER_TOUR);
+    }
+
+    @Autowired
+    public TourPlanner(RouteCache routeCache, RouteTableStore routeTableStore, BatchExecutor batchExecutor,
+                       @Value("${ilp.tours.move-budget:" + DEFAULT_MOVE_BUDGET + "}") int defaultMoveBudget,
+                       @Value("${ilp.tours.max-orders-per-tour:" + DEFAULT_MAX_ORDERS_PER_TOUR + "}") int maxOrdersPerTour) {
+        this.routeCache = routeCache;
+        this.routeTableStore = routeTableStore;
+        this.batchExecutor = batchExecutor;
+        this.defaultMoveBudget = defaultMoveBudget;
+        this.maxOrdersPerTour = Math.max(1, maxOrdersPerTour);
+    }
+
+    // Plans tours for valid orders grouped by restaurant. A move budget of 0
+    // or less uses the configured one; orders from a restaurant that is out
+    // of range on its own are left unassigned.
+    public TourPlan plan(Map<Restaurant, List<String>> ordersByRestaurant, Airspace airspace, int moveBudget) {
+        int budget = moveBudget > 0 ? moveBudget : defaultMoveBudget;
+        List<Restaurant> restaurants = new ArrayList<>(ordersByRestaurant.keySet());
+        List<LngLat> locations = new ArrayList<>();
+        locations.add(DeliveryConstants.APPLETON_TOWER);
+        for (Restaurant restaurant : restaurants) {
+            locations.add(restaurant.getLocation());
+        }
+        LegMatrix legs = planLegs(locations, airspace);
+
+        // One stop per full load of a restaurant's orders
+        List<Integer> stopLocations = new ArrayList<>();
+        List<List<String>> stopOrders = new ArrayList<>();
+        List<String> unassigned = new ArrayList<>();
+        long singleOrderMoves = 0;
+        for (int r = 0; r < restaurants.size(); r++) {
+            List<String> orderNos = ordersByRestaurant.get(restaurants.get(r));
+            long roundTrip = (long) legs.moves(0, r + 1) + legs.moves(r + 1, 0);
+            if (roundTrip > budget) {
+                unassigned.addAll(orderNos);
+                continue;
+            }
+            singleOrderMoves += roundTrip * orderNos.size();
+            for (int from = 0; from < orderNos.size(); from += maxOrdersPerTour) {
+                stopLocations.add(r + 1);
+                stopOrders.add(orderNos.subList(from, Math.min(orderNos.size(), from + maxOrdersPerTour)));
+            }
+        }
+
+        SavingsSolver solver = new SavingsSolver(legs, stopLocations.stream().mapToInt(Integer::intValue).toArray(),
+                stopOrders.stream().mapToInt(List::size).toArray(), budget, maxOrdersPerTour);
+        List<int[]> best = List.of();
+        if (!stopLocations.isEmpty()) {
+            List<ForkJoinTask<List<int[]>>> candidates = new ArrayList<>(SHAPES.length);
+            for (double shape : SHAPES) {
+                candidates.add(batchExecutor.submit(() -> solver.solve(shape)));
+            }
+            long bestMoves = Long.MAX_VALUE;
+            for (ForkJoinTask<List<int[]>> candidate : candidates) {
+                List<int[]> tours = candidate.join();
+                long moves = solver.totalMoves(tours);
+                if (moves < bestMoves) {
+                    best = tours;
+                    bestMoves = moves;
+                }
+            }
+        }
+
+        List<Tour> tours = new ArrayList<>(best.size());
+        long totalMoves = 0;
+        for (int[] stops : best) {
+            Tour tour = new Tour();
+            List<String> orderNos = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            List<List<LngLat>> path = new ArrayList<>();
+            int previous = 0;
+            for (int stop : stops) {
+                orderNos.addAll(stopOrders.get(stop));
+                names.add(restaurants.get(stopLocations.get(stop) - 1).getName());
+                path.add(legs.path(previous, stopLocations.get(stop)));
+                previous = stopLocations.get(stop);
+            }
+            path.add(legs.path(previous, 0));
+            tour.setOrderNos(orderNos);
+            tour.setRestaurants(names);
+            tour.setLegs(path);
+            tour.setMoves((int) solver.moves(stops));
+            totalMoves += tour.getMoves();
+            tours.add(tour);
+        }
+
+        TourPlan plan = new TourPlan();
+        plan.setTours(tours);
+        plan.setUnassignedOrderNos(unassigned);
+        plan.setTotalMoves((int) totalMoves);
+        plan.setSingleOrderMoves((int) singleOrderMoves);
+        return plan;
+    }
+
+    // Every leg out of a restaurant, planned in parallel. Legs into Appleton
+    // Tower are usually in the route table, the rest come from the route
+    // cache and are shared with other plans against the same airspace.
+    private LegMatrix planLegs(List<LngLat> locations, Airspace airspace) {
+        LegMatrix legs = new LegMatrix(locations.size());
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int from = 1; from < locations.size(); from++) {
+            for (int to = 0; to < locations.size(); to++) {
+                int f = from;
+                int t = to;
+                tasks.add(batchExecutor.submit(() -> {
+                    legs.set(f, t, planLeg(locations.get(f), locations.get(t), t == 0, airspace));
+                    return null;
+                }));
+            }
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return legs;
+    }
+
+    // Location 0 is Appleton Tower, the only destination in the route table
+    private List<LngLat> planLeg(LngLat from, LngLat to, boolean toTower, Airspace airspace) {
+        if (toTower) {
+            List<LngLat> precomputed = routeTableStore.lookup(from, to, airspace);
+            if (precomputed != null) {
+                return precomputed;
+            }
+        }
+        return routeCache.getOrCompute(from, to, airspace, PlannerAlgorithm.ASTAR, () -> new GridPathPlanner(airspace).plan(from, to));
+    }
+}
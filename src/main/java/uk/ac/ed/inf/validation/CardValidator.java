@@ -0,0 +1,108 @@
+package uk.ac.ed.inf.validation;
+
+import org.springframework.stereotype.Component;
+import java.time.Clock;
+import java.time.YearMonth;
+
+// Credit card checks for order validation, each a single pass over the
+// characters with no regex, substring or formatter. They accept exactly what
+// the previous checks did: \d{16} passing Luhn, MM/yy no earlier than the
+// current month, and \d{3}. The current month is cached and only looked up
+// again once the clock has left it.
+@Component
+public class CardValidator {
+    private final Clock clock;
+    private volatile CachedMonth month;
+
+    public CardValidator() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public CardValidator(Clock clock) {
+        this.clock = clock;
+        this.month = CachedMonth.of(clock);
+    }
+
+    // 16 ASCII digits with a valid Luhn check digit
+    public boolean isValidCardNumber(String number) {
+        if (number == null || number.length() != 16) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 15; i >= 0; i--) {
+            int digit = number.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            // Every second digit from the right is doubled
+            if ((i & 1) == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+
+    // MM/yy in 2000 to 2099 that has not passed yet
+    public boolean isValidExpiry(String expiry) {
+        if (expiry == null || expiry.length() != 5 || expiry.charAt(2) != '/') {
+            return false;
+        }
+        int month = twoDigits(expiry, 0);
+        int year = twoDigits(expiry, 3);
+        if (month < 1 || month > 12 || year < 0) {
+            return false;
+        }
+        return (2000 + year) * 12 + month - 1 >= currentMonth();
+    }
+
+    // 3 ASCII digits
+    public boolean isValidCvv(String cvv) {
+        return cvv != null && cvv.length() == 3 && twoDigits(cvv, 0) >= 0 && isDigit(cvv.charAt(2));
+    }
+
+    // Current month as year * 12 + month - 1
+    int currentMonth() {
+        CachedMonth current = month;
+        long now = clock.millis();
+        if (now < current.startsAt || now >= current.endsAt) {
+            current = CachedMonth.of(clock);
+            month = current;
+        }
+        return current.index;
+    }
+
+    // Value of the two digits at from, -1 if either is not a digit
+    private static int twoDigits(String text, int from) {
+        char tens = text.charAt(from);
+        char units = text.charAt(from + 1);
+        return isDigit(tens) && isDigit(units) ? (tens - '0') * 10 + (units - '0') : -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // One calendar month in the clock's zone, as epoch millis
+    private static final class CachedMonth {
+        private final int index;
+        private final long startsAt;
+        private final long endsAt;
+
+        private CachedMonth(int index, long startsAt, long endsAt) {
+            this.index = index;
+            this.startsAt = startsAt;
+            this.endsAt = endsAt;
+        }
+
+        static CachedMonth of(Clock clock) {
+            YearMonth now = YearMonth.now(clock);
+            long startsAt = now.atDay(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+            long endsAt = now.plusMonths(1).atDay(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+            return new CachedMonth(now.getYear() * 12 + now.getMonthValue() - 1, startsAt, endsAt);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package uk.ac.ed.inf.validation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.inf.data.MenuIndex;
+import uk.ac.ed.inf.data.ReferenceData;
+import uk.ac.ed.inf.exception.UpstreamUnavailableException;
+import uk.ac.ed.inf.metrics.IlpMetrics;
+import uk.ac.ed.inf.models.Order;
+import uk.ac.ed.inf.models.OrderStatus;
+import uk.ac.ed.inf.models.OrderValidationCode;
+import uk.ac.ed.inf.models.OrderValidationResult;
+import uk.ac.ed.inf.models.Pizza;
+import java.util.function.Supplier;
+
+// The order validation rules, checked in a fixed priority order against a
+// reference data snapshot and timed per validation code. Shared by the controller and the ValidateOrders
+// command line tool, which needs nothing else from the web layer.
+@Component
+public class OrderValidator {
+    private final CardValidator cardValidator;
+    private final IlpMetrics metrics;
+
+    public OrderValidator() {
+        this(new CardValidator(), new IlpMetrics());
+    }
+
+    @Autowired
+    public OrderValidator(CardValidator cardValidator, IlpMetrics metrics) {
+        this.cardValidator = cardValidator;
+        this.metrics = metrics;
+    }
+
+    public OrderValidationResult validate(Order order, ReferenceData referenceData) {
+        return validate(order, () -> referenceData);
+    }
+
+    // The reference data is only asked for once the checks that need none
+    // have passed, so those orders are answered while the server is down
+    public OrderValidationResult validate(Order order, Supplier<ReferenceData> referenceData) {
+        long started = System.nanoTime();
+        OrderValidationResult result = checkOrder(order, referenceData);
+        metrics.recordValidation(result.getOrderValidationCode(), System.nanoTime() - started);
+        return result;
+    }
+
+    public OrderValidationResult validateQuietly(Order order, ReferenceData referenceData) {
+        return validateQuietly(order, () -> referenceData);
+    }
+
+    // Validate one order of a batch, a malformed order must not abort the rest.
+    // Missing reference data is not the order's fault and is still thrown.
+    public OrderValidationResult validateQuietly(Order order, Supplier<ReferenceData> referenceData) {
+        try {
+            return validate(order, referenceData);
+        } catch (UpstreamUnavailableException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            OrderValidationResult result = new OrderValidationResult();
+            result.setOrderStatus(OrderStatus.INVALID);
+            result.setOrderValidationCode(OrderValidationCode.UNDEFINED);
+            return result;
+        }
+    }
+
+    private OrderValidationResult checkOrder(Order order, Supplier<ReferenceData> snapshot) {
+        OrderValidationResult result = new OrderValidationResult();
+        result.setOrderStatus(OrderStatus.VALID);
+        result.setOrderValidationCode(OrderValidationCode.NO_ERROR);
+
+        // Check if pizzasInOrder is null or empty
+        if (order.getPizzasInOrder() == null || order.getPizzasInOrder().isEmpty()) {
+            result.setOrderStatus(OrderStatus.INVALID);
+            result.setOrderValidationCode(OrderValidationCode.EMPTY_ORDER);
+            return result;
+        }
+
+        // Check max pizza count
+        if (order.getPizzasInOrder().size() > 4) {
+            result.setOrderStatus(OrderStatus.INVALID);
+            result.setOrderValidationCode(OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED);
+            return result;
+        }
+
+        MenuIndex menuIndex = resolve(order, snapshot).getMenuIndex();
+
+        // Check that all pizzas are defined
+        for (Pizza orderedPizza : order.getPizzasInOrder()) {
+            if (!menuIndex.isDefined(orderedPizza.getName())) {
+                result.setOrderStatus(OrderStatus.INVALID);
+                result.setOrderValidationCode(OrderValidationCode.PIZZA_NOT_DEFINED);
+                return result;
+            }
+        }
+
+        // Check that pizzas are from the same restaurant
+        MenuIndex.RestaurantMenu restaurant = menuIndex.findRestaurant(order.getPizzasInOrder());
+        if (restaurant == null) {
+            result.setOrderStatus(OrderStatus.INVALID);
+            result.setOrderValidationCode(OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS);
+            return result;
+        }
+
+        // Check restaurant is open on order date
+        if (!restaurant.isOpenOn(order.getOrderDate().getDayOfWeek())) {
+            result.setOrderStatus(OrderStatus.INVALID);
+            result.setOrderValidationCode(OrderValidationCode.RESTAURANT_CLOSED);
+            return result;
+        }
+
+        // Check pizza prices
+        for (Pizza orderedPizza : order.getPizzasInOrder()) {
+            if (!restaurant.hasPrice(orderedPizza)) {
+                result.setOrderStatus(OrderStatus.INVALID);
+                result.setOrderValidationCode(OrderValidationCode.PRICE_FOR_PIZZA_INVALID);
+                return result;
+            }
+        }
+
+        // Check total price (including £1 delivery charge)
+        int totalPrice = order.getPizzasInOrder().stream()
+                .mapToInt(Pizza::getPriceInPence).sum() + 100;
+        if (order.getPriceTotalInPence() != totalPrice) {
+            result.setOrderStatus(OrderStatus.INVALID);
+            result.setOrderValidationCode(OrderValidationCode.TOTAL_INCORRECT);
+            return result;
+        }
+
+        // Check credit card number
+        String ccNumber = order.getCreditCardInformation().getCreditCardNumber();
+        if (!cardValidator.isValidCardNumber(ccNumber)) {
+            result.setOrderStatus(OrderStatus.INVALID);
+            result.setOrderValidationCode(OrderValidationCode.CARD_NUMBER_INVALID);
+            return result;
+        }
+
+        // Check credit card expiry date
+        String expiryDate = order.getCreditCardInformation().getCreditCardExpiry();
+        if (!cardValidator.isValidExpiry(expiryDate)) {
+            result.setOrderStatus(OrderStatus.INVALID);
+            result.setOrderValidationCode(OrderValidationCode.EXPIRY_DATE_INVALID);
+            return result;
+        }
+
+        // Check CVV
+        String cvv = order.getCreditCardInformation().getCvv();
+        if (!cardValidator.isValidCvv(cvv)) {
+            result.setOrderStatus(OrderStatus.INVALID);
+            result.setOrderValidationCode(OrderValidationCode.CVV_INVALID);
+            return result;
+        }
+
+        // All checks passed
+        return result;
+    }
+
+    private static ReferenceData resolve(Order order, Supplier<ReferenceData> snapshot) {
+        try {
+            return snapshot.get();
+        } catch (UpstreamUnavailableException e) {
+            // Without card details the order can never pass, so it stays a
+            // bad request rather than one to retry once the server is back
+            if (order.getCreditCardInformation() == null) {
+                throw new IllegalArgumentException("Order has no credit card information", e);
+            }
+            throw e;
+        }
+    }
+}
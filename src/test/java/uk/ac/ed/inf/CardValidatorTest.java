@@ -0,0 +1,141 @@
+package uk.ac.ed.inf;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import uk.ac.ed.inf.validation.CardValidator;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+public class CardValidatorTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/London");
+
+    @Test
+    void testCardNumber() {
+        CardValidator validator = new CardValidator();
+        assertTrue(validator.isValidCardNumber("4485959141852684"));
+        assertFalse(validator.isValidCardNumber("4485959141852685"));
+        assertFalse(validator.isValidCardNumber("448595914185268"));
+        assertFalse(validator.isValidCardNumber("44859591418526840"));
+        assertFalse(validator.isValidCardNumber("4485959141852a84"));
+        assertFalse(validator.isValidCardNumber(null));
+    }
+
+    @Test
+    void testExpiryAgainstTheClock() {
+        CardValidator validator = new CardValidator(Clock.fixed(Instant.parse("2024-06-15T12:00:00Z"), ZONE));
+        assertTrue(validator.isValidExpiry("06/24"));
+        assertTrue(validator.isValidExpiry("01/99"));
+        assertFalse(validator.isValidExpiry("05/24"));
+        assertFalse(validator.isValidExpiry("13/30"));
+        assertFalse(validator.isValidExpiry("00/30"));
+        assertFalse(validator.isValidExpiry("6/24"));
+        assertFalse(validator.isValidExpiry("06-24"));
+        assertFalse(validator.isValidExpiry(null));
+    }
+
+    @Test
+    void testCachedMonthFollowsTheClock() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-06-30T22:59:59Z"));
+        CardValidator validator = new CardValidator(clock);
+        assertTrue(validator.isValidExpiry("06/24"));
+
+        // Midnight on 1 July in London
+        clock.now = Instant.parse("2024-06-30T23:00:00Z");
+        assertFalse(validator.isValidExpiry("06/24"));
+
+        clock.now = Instant.parse("2024-06-10T00:00:00Z");
+        assertTrue(validator.isValidExpiry("06/24"));
+    }
+
+    @Test
+    void testCvv() {
+        CardValidator validator = new CardValidator();
+        assertTrue(validator.isValidCvv("123"));
+        assertFalse(validator.isValidCvv("12"));
+        assertFalse(validator.isValidCvv("1234"));
+        assertFalse(validator.isValidCvv("12a"));
+        assertFalse(validator.isValidCvv(null));
+    }
+
+    @Test
+    void testAgreesWithTheRegexChecks() {
+        Clock clock = Clock.fixed(Instant.parse("2024-06-15T12:00:00Z"), ZONE);
+        CardValidator validator = new CardValidator(clock);
+        Random random = new Random(42);
+        String alphabet = "0123456789/a ";
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(18);
+            for (int i = 0; i < length; i++) {
+                text.append(random.nextInt(10) < 9 ? (char) ('0' + random.nextInt(10)) : alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String s = text.toString();
+            assertEquals(luhn(s), validator.isValidCardNumber(s), s);
+            assertEquals(expiry(s, clock), validator.isValidExpiry(s), s);
+            assertEquals(s.matches("\\d{3}"), validator.isValidCvv(s), s);
+        }
+        for (int month = 0; month < 100; month++) {
+            for (int year = 0; year < 100; year++) {
+                String s = String.format("%02d/%02d", month, year);
+                assertEquals(expiry(s, clock), validator.isValidExpiry(s), s);
+            }
+        }
+    }
+
+    private static boolean luhn(String number) {
+        if (!number.matches("\\d{16}")) {
+            return false;
+        }
+        int sum = 0;
+        boolean alternate = false;
+        for (int i = number.length() - 1; i >= 0; i--) {
+            int n = Integer.parseInt(number.substring(i, i + 1));
+            if (alternate) {
+                n *= 2;
+                if (n > 9) {
+                    n = (n % 10) + 1;
+                }
+            }
+            sum += n;
+            alternate = !alternate;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static boolean expiry(String text, Clock clock) {
+        if (!text.matches("\\d{2}/\\d{2}")) {
+            return false;
+        }
+        try {
+            YearMonth expiry = YearMonth.parse(text, DateTimeFormatter.ofPattern("MM/yy"));
+            return !expiry.isBefore(YearMonth.now(clock));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
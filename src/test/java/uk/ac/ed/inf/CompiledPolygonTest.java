@@ -0,0 +1,76 @@
+package uk.ac.ed.inf;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.models.NoFlyZone;
+import uk.ac.ed.inf.pathfinding.Airspace;
+import uk.ac.ed.inf.pathfinding.CompiledPolygon;
+import uk.ac.ed.inf.pathfinding.Geometry;
+import java.util.*;
+
+public class CompiledPolygonTest {
+
+    // George Square style concave polygon with a repeated closing vertex
+    private static final List<LngLat> POLYGON = Arrays.asList(
+            new LngLat(-3.190578, 55.944494),
+            new LngLat(-3.187986, 55.944494),
+            new LngLat(-3.187986, 55.942617),
+            new LngLat(-3.189000, 55.943500),
+            new LngLat(-3.190578, 55.942617),
+            new LngLat(-3.190578, 55.944494));
+
+    @Test
+    void testContainsMatchesGeometry() {
+        CompiledPolygon compiled = new CompiledPolygon(POLYGON);
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            LngLat point = randomPoint(random);
+            assertEquals(Geometry.isPointInPolygon(point, POLYGON), compiled.contains(point.getLng(), point.getLat()));
+        }
+        // Points level with a vertex take the nudged branch
+        for (LngLat vertex : POLYGON) {
+            LngLat point = new LngLat(vertex.getLng() - 0.0005, vertex.getLat());
+            assertEquals(Geometry.isPointInPolygon(point, POLYGON), compiled.contains(point.getLng(), point.getLat()));
+        }
+    }
+
+    @Test
+    void testIntersectsSegmentMatchesGeometry() {
+        CompiledPolygon compiled = new CompiledPolygon(POLYGON);
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            LngLat from = randomPoint(random);
+            LngLat to = from.nextPosition(random.nextInt(16) * 22.5);
+            assertEquals(Geometry.lineIntersectsPolygon(from, to, POLYGON),
+                    compiled.intersectsSegment(from.getLng(), from.getLat(), to.getLng(), to.getLat()));
+        }
+    }
+
+    @Test
+    void testAirspaceMatchesGeometryForEveryZone() {
+        NoFlyZone square = new NoFlyZone();
+        square.setName("Square");
+        square.setVertices(POLYGON);
+        NoFlyZone meadows = new NoFlyZone();
+        meadows.setName("Meadows");
+        meadows.setVertices(Arrays.asList(
+                new LngLat(-3.1895, 55.9430), new LngLat(-3.1870, 55.9436),
+                new LngLat(-3.1880, 55.9448), new LngLat(-3.1895, 55.9430)));
+        List<NoFlyZone> zones = Arrays.asList(square, meadows);
+        Airspace airspace = Airspace.compile(zones, null);
+
+        Random random = new Random(11);
+        for (int i = 0; i < 20000; i++) {
+            LngLat from = random.nextInt(10) == 0 ? new LngLat(-3.25 + random.nextDouble() * 0.1, 55.90 + random.nextDouble() * 0.1) : randomPoint(random);
+            LngLat to = from.nextPosition(random.nextInt(16) * 22.5);
+            boolean expected = Geometry.lineIntersectsPolygon(from, to, square.getVertices())
+                    || Geometry.lineIntersectsPolygon(from, to, meadows.getVertices());
+            assertEquals(expected, airspace.crossesNoFlyZone(from.getLng(), from.getLat(), to.getLng(), to.getLat()));
+        }
+    }
+
+    private LngLat randomPoint(Random random) {
+        return new LngLat(-3.1915 + random.nextDouble() * 0.0045, 55.9420 + random.nextDouble() * 0.0031);
+    }
+}
@@ -0,0 +1,111 @@
+package uk.ac.ed.inf;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.batch.DeliveryPipeline;
+import uk.ac.ed.inf.metrics.IlpMetrics;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeliveryPipelineTest {
+
+    @Test
+    void testResultsAreWrittenInInputOrder() throws Exception {
+        DeliveryPipeline pipeline = new DeliveryPipeline(3, 4, 8, 16);
+        try {
+            List<Integer> written = new ArrayList<>();
+            long count = pipeline.run(IntStream.range(0, 500).boxed().iterator(),
+                    n -> n % 3 == 0 ? null : n,
+                    n -> {
+                        sleepMicros(ThreadLocalRandom.current().nextInt(200));
+                        return n % 5 == 0 ? null : -n;
+                    },
+                    written::add);
+
+            List<Integer> expected = IntStream.range(0, 500).filter(n -> n % 3 != 0 && n % 5 != 0).map(n -> -n).boxed().toList();
+            assertEquals(expected, written);
+            assertEquals(expected.size(), count);
+        } finally {
+            pipeline.destroy();
+        }
+    }
+
+    @Test
+    void testStalledPlannerStopsTheReader() throws Exception {
+        // One worker and two queued items per stage, far below the in-flight window
+        DeliveryPipeline pipeline = new DeliveryPipeline(1, 1, 2, 1000);
+        CountDownLatch plannerReleased = new CountDownLatch(1);
+        AtomicInteger read = new AtomicInteger();
+        Iterator<Integer> inputs = new Iterator<>() {
+            public boolean hasNext() { return read.get() < 100; }
+            public Integer next() { return read.incrementAndGet(); }
+        };
+        AtomicLong count = new AtomicLong(-1);
+        Thread runner = new Thread(() -> {
+            try {
+                count.set(pipeline.run(inputs, n -> n, n -> {
+                    awaitQuietly(plannerReleased);
+                    return n;
+                }, n -> { }));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        try {
+            runner.start();
+            Thread.sleep(200);
+            // Three slots in each stage and the item the reader is blocked on
+            assertTrue(read.get() <= 7, "read " + read.get() + " orders past a stalled planner");
+
+            plannerReleased.countDown();
+            runner.join(10000);
+            assertEquals(100, count.get());
+        } finally {
+            plannerReleased.countDown();
+            pipeline.destroy();
+        }
+    }
+
+    @Test
+    void testStageMetricsAreRecorded() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DeliveryPipeline pipeline = new DeliveryPipeline(2, 2, 4, 8);
+        pipeline.setMetrics(new IlpMetrics(registry));
+        try {
+            pipeline.run(IntStream.range(0, 40).boxed().iterator(), n -> n % 2 == 0 ? n : null, n -> n, n -> { });
+
+            assertEquals(40, registry.get("ilp.pipeline.duration").tag("stage", "validate").timer().count());
+            assertEquals(20, registry.get("ilp.pipeline.duration").tag("stage", "plan").timer().count());
+            assertEquals(20, registry.get("ilp.pipeline.duration").tag("stage", "write").timer().count());
+            assertEquals(0, registry.get("ilp.pipeline.queue.depth").tag("stage", "plan").gauge().value());
+            assertEquals(0, registry.get("ilp.pipeline.in.flight").gauge().value());
+        } finally {
+            pipeline.destroy();
+        }
+    }
+
+    private static void sleepMicros(long micros) {
+        try {
+            Thread.sleep(micros / 1000, (int) (micros % 1000) * 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
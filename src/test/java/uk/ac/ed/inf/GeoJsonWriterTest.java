@@ -0,0 +1,76 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import uk.ac.ed.inf.geojson.GeoJsonWriter;
+import uk.ac.ed.inf.geojson.PathFeature;
+import uk.ac.ed.inf.models.LngLat;
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+public class GeoJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testFeatureSkipsHovers() throws Exception {
+        LngLat start = new LngLat(-3.19, 55.944);
+        LngLat next = start.nextPosition(0);
+        List<LngLat> path = Arrays.asList(start, start, next, next);
+
+        JsonNode feature = objectMapper.readTree(objectMapper.writeValueAsString(new PathFeature("Delivery Path", null, path)));
+
+        assertEquals("Feature", feature.get("type").asText());
+        assertEquals("LineString", feature.get("geometry").get("type").asText());
+        assertEquals("Delivery Path", feature.get("properties").get("name").asText());
+        assertFalse(feature.get("properties").has("orderNo"));
+        JsonNode coordinates = feature.get("geometry").get("coordinates");
+        assertEquals(2, coordinates.size());
+        assertEquals(start.getLng(), coordinates.get(0).get(0).asDouble());
+        assertEquals(next.getLat(), coordinates.get(1).get(1).asDouble());
+    }
+
+    @Test
+    void testFeatureCollection() throws Exception {
+        LngLat start = new LngLat(-3.19, 55.944);
+        List<LngLat> path = Arrays.asList(start, start, start.nextPosition(90), start.nextPosition(90));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GeoJsonWriter writer = new GeoJsonWriter(objectMapper, out)) {
+            writer.write(new PathFeature("Delivery Path", "A1", path));
+            writer.write(new PathFeature("Delivery Path", "A2", path));
+            writer.finish();
+        }
+
+        JsonNode collection = objectMapper.readTree(out.toByteArray());
+        assertEquals("FeatureCollection", collection.get("type").asText());
+        assertEquals(2, collection.get("features").size());
+        assertEquals("A2", collection.get("features").get(1).get("properties").get("orderNo").asText());
+    }
+
+    @Test
+    void testEmptyFeatureCollection() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GeoJsonWriter writer = new GeoJsonWriter(objectMapper, out)) {
+            writer.finish();
+        }
+
+        assertEquals("{\"type\":\"FeatureCollection\",\"features\":[]}", out.toString());
+    }
+
+    @Test
+    void testUnfinishedCollectionIsLeftOpen() throws Exception {
+        LngLat start = new LngLat(-3.19, 55.944);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GeoJsonWriter writer = new GeoJsonWriter(objectMapper, out)) {
+            writer.write(new PathFeature("Delivery Path", "A1", Arrays.asList(start, start.nextPosition(0))));
+            // A failed batch closes the writer without finishing it
+        }
+
+        assertTrue(out.toString().contains("\"A1\""));
+        assertThrows(JsonProcessingException.class, () -> objectMapper.readTree(out.toByteArray()));
+    }
+}
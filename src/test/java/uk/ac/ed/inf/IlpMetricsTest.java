@@ -0,0 +1,75 @@
+package uk.ac.ed.inf;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import uk.ac.ed.inf.batch.BatchExecutor;
+import uk.ac.ed.inf.batch.DeliveryPipeline;
+import uk.ac.ed.inf.controllers.RestServiceController;
+import uk.ac.ed.inf.data.ReferenceData;
+import uk.ac.ed.inf.data.ReferenceDataStore;
+import uk.ac.ed.inf.data.RouteTableStore;
+import uk.ac.ed.inf.metrics.IlpMetrics;
+import uk.ac.ed.inf.models.*;
+import uk.ac.ed.inf.pathfinding.RouteCache;
+import uk.ac.ed.inf.tours.TourPlanner;
+import uk.ac.ed.inf.validation.CardValidator;
+import uk.ac.ed.inf.validation.OrderValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+public class IlpMetricsTest {
+
+    @Test
+    void testValidationIsTimedPerCode() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        RestServiceController controller = controller(registry);
+        ReferenceData referenceData = new ReferenceData(Collections.emptyList(), Collections.emptyList(), null, 1, Instant.EPOCH);
+
+        Order order = new Order();
+        order.setOrderNo("1");
+        order.setOrderDate(LocalDate.parse("2025-01-06"));
+        order.setPizzasInOrder(Collections.emptyList());
+        controller.performOrderValidation(order, referenceData);
+        controller.performOrderValidation(order, referenceData);
+
+        assertEquals(2, registry.get("ilp.validation").tag("code", "EMPTY_ORDER").timer().count());
+        assertEquals(0, registry.get("ilp.validation").tag("code", "NO_ERROR").timer().count());
+    }
+
+    @Test
+    void testPlannerSearchIsRecorded() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        RestServiceController controller = controller(registry);
+        Region central = new Region();
+        central.setName("central");
+        central.setVertices(Arrays.asList(
+                new LngLat(-3.192473, 55.946233), new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617), new LngLat(-3.184319, 55.946233)));
+        NoFlyZone zone = new NoFlyZone();
+        zone.setName("block");
+        zone.setVertices(Arrays.asList(
+                new LngLat(-3.1900, 55.9440), new LngLat(-3.1890, 55.9440),
+                new LngLat(-3.1890, 55.9450), new LngLat(-3.1900, 55.9450)));
+        LngLat start = new LngLat(-3.1912869215011597, 55.945535152517735);
+
+        List<LngLat> path = controller.calculatePath(start, DeliveryConstants.APPLETON_TOWER, List.of(zone), central);
+
+        assertNotNull(path);
+        assertEquals(1, registry.get("ilp.planner.duration").tag("outcome", "found").timer().count());
+        assertEquals(path.size(), registry.get("ilp.planner.path.length").summary().totalAmount());
+        assertTrue(registry.get("ilp.planner.nodes.expanded").summary().totalAmount() > 0);
+        assertTrue(registry.get("ilp.planner.open.peak").summary().totalAmount() > 0);
+        assertTrue(registry.get("ilp.planner.rejected").tag("rule", "no_fly_zone").counter().count() > 0);
+    }
+
+    private RestServiceController controller(MeterRegistry registry) {
+        IlpMetrics metrics = new IlpMetrics(registry);
+        return new RestServiceController(new ReferenceDataStore(), new BatchExecutor(), new RouteCache(), new RouteTableStore(),
+                new ObjectMapper(), metrics, new TourPlanner(),
+                new OrderValidator(new CardValidator(), metrics), new DeliveryPipeline());
+    }
+}
@@ -0,0 +1,158 @@
+package uk.ac.ed.inf;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.inf.data.IlpRestClient;
+import uk.ac.ed.inf.exception.UpstreamUnavailableException;
+import uk.ac.ed.inf.models.Region;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IlpRestClientTest {
+
+    private static final String CENTRAL_AREA_JSON =
+            "{\"name\":\"central\",\"vertices\":[{\"lng\":-3.192473,\"lat\":55.946233},{\"lng\":-3.192473,\"lat\":55.942617},"
+                    + "{\"lng\":-3.184319,\"lat\":55.942617},{\"lng\":-3.184319,\"lat\":55.946233},{\"lng\":-3.192473,\"lat\":55.946233}]}";
+
+    private HttpServer server;
+    private String url;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile boolean failing;
+    private final MutableClock clock = new MutableClock();
+
+    @BeforeEach
+    void startStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/centralArea", this::respond);
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/centralArea";
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testCircuitOpensAfterRepeatedFailuresAndRecovers() {
+        IlpRestClient client = new IlpRestClient(new RestTemplate(), 2, Duration.ofSeconds(30), clock);
+        failing = true;
+
+        assertThrows(UpstreamUnavailableException.class, () -> client.get(url, new HttpHeaders(), Region.class));
+        assertFalse(client.isOpen());
+        assertThrows(UpstreamUnavailableException.class, () -> client.get(url, new HttpHeaders(), Region.class));
+        assertTrue(client.isOpen());
+
+        // Open: fails without calling the server, even though it is back
+        failing = false;
+        assertThrows(UpstreamUnavailableException.class, () -> client.get(url, new HttpHeaders(), Region.class));
+        assertEquals(2, requests.get());
+
+        // Half open after the open period, a successful trial closes it again
+        clock.advance(Duration.ofSeconds(31));
+        assertEquals(5, client.get(url, new HttpHeaders(), Region.class).getBody().getVertices().size());
+        assertFalse(client.isOpen());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void testFailedTrialReopensCircuit() {
+        IlpRestClient client = new IlpRestClient(new RestTemplate(), 1, Duration.ofSeconds(30), clock);
+        failing = true;
+
+        assertThrows(UpstreamUnavailableException.class, () -> client.get(url, new HttpHeaders(), Region.class));
+        clock.advance(Duration.ofSeconds(31));
+        assertThrows(UpstreamUnavailableException.class, () -> client.get(url, new HttpHeaders(), Region.class));
+        assertEquals(2, requests.get());
+
+        failing = false;
+        assertThrows(UpstreamUnavailableException.class, () -> client.get(url, new HttpHeaders(), Region.class));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void testUnexpectedExceptionEndsHalfOpenTrial() {
+        AtomicBoolean broken = new AtomicBoolean();
+        RestTemplate restTemplate = new RestTemplate() {
+            @Override
+            public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> requestEntity, Class<T> responseType, Object... uriVariables) {
+                if (broken.get()) {
+                    throw new IllegalStateException("converter failed");
+                }
+                return super.exchange(url, method, requestEntity, responseType, uriVariables);
+            }
+        };
+        IlpRestClient client = new IlpRestClient(restTemplate, 1, Duration.ofSeconds(30), clock);
+        failing = true;
+        assertThrows(UpstreamUnavailableException.class, () -> client.get(url, new HttpHeaders(), Region.class));
+
+        // The trial fails with something other than a RestClientException
+        clock.advance(Duration.ofSeconds(31));
+        broken.set(true);
+        assertThrows(UpstreamUnavailableException.class, () -> client.get(url, new HttpHeaders(), Region.class));
+        assertTrue(client.isOpen());
+
+        // It still counts as a failed trial, so the next period gets a new one
+        clock.advance(Duration.ofSeconds(31));
+        assertFalse(client.isOpen());
+        broken.set(false);
+        failing = false;
+        assertEquals(5, client.get(url, new HttpHeaders(), Region.class).getBody().getVertices().size());
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (failing) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = CENTRAL_AREA_JSON.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-06T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
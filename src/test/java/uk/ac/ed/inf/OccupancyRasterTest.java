@@ -0,0 +1,83 @@
+package uk.ac.ed.inf;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.models.NoFlyZone;
+import uk.ac.ed.inf.models.Region;
+import uk.ac.ed.inf.pathfinding.Airspace;
+import uk.ac.ed.inf.pathfinding.OccupancyRaster;
+import uk.ac.ed.inf.pathfinding.OccupancyRasterizer;
+import java.util.*;
+
+public class OccupancyRasterTest {
+
+    @Test
+    void testRasterMatchesExactGeometry() {
+        List<NoFlyZone> zones = Arrays.asList(
+                zone("George Square", new LngLat(-3.190578, 55.944494), new LngLat(-3.187986, 55.944494),
+                        new LngLat(-3.187986, 55.942617), new LngLat(-3.189000, 55.943500), new LngLat(-3.190578, 55.942617)),
+                zone("Meadows", new LngLat(-3.1895, 55.9430), new LngLat(-3.1870, 55.9436), new LngLat(-3.1880, 55.9448)));
+        Region central = centralArea();
+
+        Airspace exact = Airspace.compile(zones, central);
+        OccupancyRasterizer rasterizer = new OccupancyRasterizer();
+        Airspace rastered = exact.withRaster(rasterizer.rasterize(zones, central));
+        assertTrue(rasterizer.getLastMemoryBytes() > 0);
+
+        Random random = new Random(3);
+        for (int i = 0; i < 50000; i++) {
+            LngLat from = new LngLat(-3.196 + random.nextDouble() * 0.016, 55.940 + random.nextDouble() * 0.008);
+            LngLat to = from.nextPosition(random.nextInt(16) * 22.5);
+            assertEquals(exact.crossesNoFlyZone(from.getLng(), from.getLat(), to.getLng(), to.getLat()),
+                    rastered.crossesNoFlyZone(from.getLng(), from.getLat(), to.getLng(), to.getLat()));
+            assertEquals(exact.isInCentralArea(to.getLng(), to.getLat()), rastered.isInCentralArea(to.getLng(), to.getLat()));
+        }
+    }
+
+    @Test
+    void testMostLookupsAreDecidedByTheRaster() {
+        OccupancyRaster raster = new OccupancyRasterizer().rasterize(List.of(), centralArea());
+        Random random = new Random(5);
+        int decided = 0;
+        for (int i = 0; i < 10000; i++) {
+            double lng = -3.196 + random.nextDouble() * 0.016;
+            double lat = 55.940 + random.nextDouble() * 0.008;
+            if (raster.centralAreaState(lng, lat) != OccupancyRaster.UNKNOWN) {
+                decided++;
+            }
+        }
+        assertTrue(decided > 9000);
+        // Outside the operating area nothing is known
+        assertEquals(OccupancyRaster.UNKNOWN, raster.centralAreaState(-3.5, 55.5));
+    }
+
+    @Test
+    void testRebuildAfterZoneChange() {
+        OccupancyRasterizer rasterizer = new OccupancyRasterizer();
+        NoFlyZone square = zone("Square", new LngLat(-3.1900, 55.9440), new LngLat(-3.1890, 55.9440), new LngLat(-3.1890, 55.9430));
+        rasterizer.rasterize(List.of(square), centralArea());
+
+        NoFlyZone moved = zone("Square", new LngLat(-3.1850, 55.9440), new LngLat(-3.1840, 55.9440), new LngLat(-3.1840, 55.9430));
+        OccupancyRaster raster = rasterizer.rasterize(List.of(moved), centralArea());
+        // The old zone no longer blocks anything, the new one does
+        assertTrue(raster.isClearOfZones(-3.1895, 55.9435, -3.1895, 55.94365));
+        assertFalse(raster.isClearOfZones(-3.1845, 55.94395, -3.1845, 55.94410));
+    }
+
+    private static NoFlyZone zone(String name, LngLat... vertices) {
+        NoFlyZone zone = new NoFlyZone();
+        zone.setName(name);
+        zone.setVertices(Arrays.asList(vertices));
+        return zone;
+    }
+
+    private static Region centralArea() {
+        Region region = new Region();
+        region.setName("central");
+        region.setVertices(Arrays.asList(
+                new LngLat(-3.192473, 55.946233), new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617), new LngLat(-3.184319, 55.946233)));
+        return region;
+    }
+}
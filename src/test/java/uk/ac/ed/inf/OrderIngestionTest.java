@@ -0,0 +1,72 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.batch.BatchExecutor;
+import uk.ac.ed.inf.batch.OrderIngestion;
+import uk.ac.ed.inf.models.OrderStatus;
+import uk.ac.ed.inf.models.OrderValidationCode;
+import uk.ac.ed.inf.models.OrderValidationResult;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderIngestionTest {
+    private static final String ORDER = "{\"orderNo\":\"A1\",\"priceTotalInPence\":1100}";
+    private static final String MALFORMED_ORDER = "{\"orderNo\":\"A2\",\"priceTotalInPence\":\"eleven pounds\"}";
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Test
+    void testCompleteBatchIsAClosedArray() throws Exception {
+        BatchExecutor batchExecutor = new BatchExecutor(2, 4);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long count = new OrderIngestion(objectMapper, batchExecutor).validate(input("[" + ORDER + "," + ORDER + "]"), out, false, order -> valid());
+
+            assertEquals(2, count);
+            assertEquals(2, objectMapper.readTree(out.toByteArray()).size());
+        } finally {
+            batchExecutor.destroy();
+        }
+    }
+
+    @Test
+    void testMalformedOrderLeavesArrayUnterminated() {
+        // One order in flight, so the orders before the bad one are already written
+        BatchExecutor batchExecutor = new BatchExecutor(2, 1);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            String body = "[" + ORDER + "," + ORDER + "," + MALFORMED_ORDER + "," + ORDER + "]";
+
+            assertThrows(JsonProcessingException.class,
+                    () -> new OrderIngestion(objectMapper, batchExecutor).validate(input(body), out, false, order -> valid()));
+
+            // The result must not read as a whole batch
+            String written = out.toString(StandardCharsets.UTF_8);
+            assertTrue(written.startsWith("[{"), written);
+            assertThrows(JsonProcessingException.class, () -> objectMapper.readTree(written));
+        } finally {
+            batchExecutor.destroy();
+        }
+    }
+
+    private static ByteArrayInputStream input(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static OrderValidationResult valid() {
+        OrderValidationResult result = new OrderValidationResult();
+        result.setOrderStatus(OrderStatus.VALID);
+        result.setOrderValidationCode(OrderValidationCode.NO_ERROR);
+        return result;
+    }
+}
@@ -4,8 +4,12 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 import uk.ac.ed.inf.models.*;
 import uk.ac.ed.inf.controllers.RestServiceController;
+import uk.ac.ed.inf.data.ReferenceData;
+import uk.ac.ed.inf.exception.UpstreamUnavailableException;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Supplier;
 
 public class OrderValidationTest {
 
@@ -42,6 +46,74 @@ public class OrderValidationTest {
         assertEquals(OrderValidationCode.EXPIRY_DATE_INVALID, result.getOrderValidationCode());
     }
 
+    @Test
+    void testValidateOrderAgainstSnapshotPizzaNotDefinedFirst() {
+        RestServiceController controller = new RestServiceController();
+        Order order = createValidOrder();
+        order.setPizzasInOrder(Arrays.asList(new Pizza("R1: Margarita", 1000), new Pizza("R2: Meat Lover", 1400), new Pizza("Unknown", 900)));
+
+        OrderValidationResult result = controller.performOrderValidation(order, createReferenceData());
+
+        assertEquals(OrderValidationCode.PIZZA_NOT_DEFINED, result.getOrderValidationCode());
+    }
+
+    @Test
+    void testValidateOrderAgainstSnapshotMultipleRestaurants() {
+        RestServiceController controller = new RestServiceController();
+        Order order = createValidOrder();
+        order.setPizzasInOrder(Arrays.asList(new Pizza("R1: Margarita", 1000), new Pizza("R2: Meat Lover", 1400)));
+        order.setPriceTotalInPence(2500);
+
+        OrderValidationResult result = controller.performOrderValidation(order, createReferenceData());
+
+        assertEquals(OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS, result.getOrderValidationCode());
+    }
+
+    @Test
+    void testValidateOrderAgainstSnapshotClosedAndPrice() {
+        RestServiceController controller = new RestServiceController();
+        Order closedOrder = createValidOrder();
+        closedOrder.setOrderDate(LocalDate.parse("2025-01-07")); // Tuesday
+        Order wrongPriceOrder = createValidOrder();
+        wrongPriceOrder.setPizzasInOrder(Arrays.asList(new Pizza("R1: Margarita", 900)));
+        wrongPriceOrder.setPriceTotalInPence(1000);
+
+        assertEquals(OrderValidationCode.RESTAURANT_CLOSED, controller.performOrderValidation(closedOrder, createReferenceData()).getOrderValidationCode());
+        assertEquals(OrderValidationCode.PRICE_FOR_PIZZA_INVALID, controller.performOrderValidation(wrongPriceOrder, createReferenceData()).getOrderValidationCode());
+        assertEquals(OrderValidationCode.NO_ERROR, controller.performOrderValidation(createValidOrder(), createReferenceData()).getOrderValidationCode());
+    }
+
+    @Test
+    void testChecksWithoutReferenceDataRunFirst() {
+        RestServiceController controller = new RestServiceController();
+        Supplier<ReferenceData> unavailable = () -> {
+            throw new UpstreamUnavailableException("ILP server down");
+        };
+        Order tooMany = createValidOrder();
+        tooMany.setPizzasInOrder(Collections.nCopies(5, new Pizza("R1: Margarita", 1000)));
+        Order noCard = createValidOrder();
+        noCard.setCreditCardInformation(null);
+
+        assertEquals(OrderValidationCode.EMPTY_ORDER, controller.performOrderValidation(createEmptyOrder(), unavailable).getOrderValidationCode());
+        assertEquals(OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED, controller.performOrderValidation(tooMany, unavailable).getOrderValidationCode());
+        assertThrows(IllegalArgumentException.class, () -> controller.performOrderValidation(noCard, unavailable));
+        assertThrows(UpstreamUnavailableException.class, () -> controller.performOrderValidation(createValidOrder(), unavailable));
+    }
+
+    private ReferenceData createReferenceData() {
+        Restaurant r1 = new Restaurant();
+        r1.setName("Civerinos Slice");
+        r1.setLocation(new LngLat(-3.1912869215011597, 55.945535152517735));
+        r1.setOpeningDays(Arrays.asList("MONDAY", "SUNDAY"));
+        r1.setMenu(Arrays.asList(new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400)));
+        Restaurant r2 = new Restaurant();
+        r2.setName("Sora Lella Vegan Restaurant");
+        r2.setLocation(new LngLat(-3.202541470527649, 55.943284737579376));
+        r2.setOpeningDays(Arrays.asList("MONDAY", "TUESDAY", "SUNDAY"));
+        r2.setMenu(Arrays.asList(new Pizza("R2: Meat Lover", 1400)));
+        return new ReferenceData(Arrays.asList(r1, r2), Collections.emptyList(), null, 1, Instant.EPOCH);
+    }
+
     // Helper methods to create test orders
     private Order createValidOrder() {
         Order order = new Order();
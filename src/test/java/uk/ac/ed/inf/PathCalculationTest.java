@@ -37,6 +37,23 @@ public class PathCalculationTest {
         assertNotNull(path); // No path found
     }
 
+    @Test
+    void testPathStepsAreSingleMoves() {
+        RestServiceController controller = new RestServiceController();
+        LngLat start = new LngLat(-3.19128692150116, 55.9455351525177);
+        LngLat end = new LngLat(-3.186874, 55.944494);
+
+        List<LngLat> path = controller.calculatePath(start, end, createBlockingNoFlyZones(), createCentralArea());
+        assertNotNull(path);
+
+        // Hover at both ends, every other step is exactly one move
+        assertSame(path.get(0), path.get(1));
+        assertSame(path.get(path.size() - 1), path.get(path.size() - 2));
+        for (int i = 1; i < path.size() - 2; i++) {
+            assertEquals(0.00015, path.get(i).distanceTo(path.get(i + 1)), 1e-12);
+        }
+    }
+
     @Test
     void testIsValidMove() {
         RestServiceController controller = new RestServiceController();
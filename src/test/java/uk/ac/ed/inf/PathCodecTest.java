@@ -0,0 +1,72 @@
+package uk.ac.ed.inf;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import uk.ac.ed.inf.controllers.RestServiceController;
+import uk.ac.ed.inf.encoding.PathCodec;
+import uk.ac.ed.inf.models.DeliveryConstants;
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.models.NoFlyZone;
+import uk.ac.ed.inf.models.Region;
+import java.util.*;
+
+public class PathCodecTest {
+
+    @Test
+    void testAnglesRoundTripIsExact() {
+        List<LngLat> path = plannedPath();
+
+        byte[] encoded = PathCodec.encodeAngles(path);
+        List<LngLat> decoded = PathCodec.decodeAngles(encoded);
+
+        // Header, count and first point, then one byte per step
+        assertEquals(2 + 1 + 16 + path.size() - 1, encoded.length);
+        assertEquals(path.size(), decoded.size());
+        for (int i = 0; i < path.size(); i++) {
+            assertEquals(path.get(i).getLng(), decoded.get(i).getLng());
+            assertEquals(path.get(i).getLat(), decoded.get(i).getLat());
+        }
+    }
+
+    @Test
+    void testAnglesEscapesArbitraryPoints() {
+        List<LngLat> path = Arrays.asList(new LngLat(-3.19, 55.94), new LngLat(-3.18, 55.95), new LngLat(-3.18, 55.95));
+
+        List<LngLat> decoded = PathCodec.decodeAngles(PathCodec.encodeAngles(path));
+
+        assertEquals(-3.18, decoded.get(1).getLng());
+        assertEquals(55.95, decoded.get(2).getLat());
+    }
+
+    @Test
+    void testDeltaVarintRoundTrip() {
+        List<LngLat> path = plannedPath();
+
+        byte[] encoded = PathCodec.encodeDeltaVarint(path);
+        List<LngLat> decoded = PathCodec.decodeDeltaVarint(encoded);
+
+        assertTrue(encoded.length < path.size() * 8);
+        assertEquals(path.size(), decoded.size());
+        for (int i = 0; i < path.size(); i++) {
+            assertEquals(path.get(i).getLng(), decoded.get(i).getLng(), 1e-9);
+            assertEquals(path.get(i).getLat(), decoded.get(i).getLat(), 1e-9);
+        }
+    }
+
+    @Test
+    void testRejectsOtherFormats() {
+        byte[] angles = PathCodec.encodeAngles(plannedPath());
+        assertThrows(IllegalArgumentException.class, () -> PathCodec.decodeDeltaVarint(angles));
+    }
+
+    private List<LngLat> plannedPath() {
+        Region central = new Region();
+        central.setName("central");
+        central.setVertices(Arrays.asList(
+                new LngLat(-3.192473, 55.946233), new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617), new LngLat(-3.184319, 55.946233)));
+        List<NoFlyZone> zones = Collections.emptyList();
+        LngLat start = new LngLat(-3.1912869215011597, 55.945535152517735);
+        return new RestServiceController().calculatePath(start, DeliveryConstants.APPLETON_TOWER, zones, central);
+    }
+}
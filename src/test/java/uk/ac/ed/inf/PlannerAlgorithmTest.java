@@ -0,0 +1,185 @@
+package uk.ac.ed.inf;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import uk.ac.ed.inf.models.DeliveryConstants;
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.models.NoFlyZone;
+import uk.ac.ed.inf.models.Region;
+import uk.ac.ed.inf.pathfinding.Airspace;
+import uk.ac.ed.inf.pathfinding.GridPathPlanner;
+import uk.ac.ed.inf.pathfinding.PlannerAlgorithm;
+import uk.ac.ed.inf.pathfinding.SearchStats;
+import java.time.Duration;
+import java.util.*;
+
+public class PlannerAlgorithmTest {
+
+    // The ILP restaurants, the same as the benchmark fixtures
+    private static final List<LngLat> RESTAURANTS = Arrays.asList(
+                new LngLat(-3.1912869215011597, 55.945535152517735),
+                new LngLat(-3.202541470527649, 55.943284737579376),
+                new LngLat(-3.1838572025299072, 55.94449876875712),
+                new LngLat(-3.1940174102783203, 55.94390696616939),
+                new LngLat(-3.1810810679852035, 55.938910643735845),
+                new LngLat(-3.185428203143916, 55.945846113595),
+                new LngLat(-3.179798972064253, 55.93988408448313));
+
+    @Test
+    void testBidirectionalPathsFollowTheMoveRules() {
+        assertPathsFollowTheMoveRules(PlannerAlgorithm.BIDIRECTIONAL);
+    }
+
+    @Test
+    void testVisibilityPathsFollowTheMoveRules() {
+        assertPathsFollowTheMoveRules(PlannerAlgorithm.VISIBILITY);
+    }
+
+    @Test
+    void testBidirectionalExpandsFewerStatesThanAStar() {
+        assertExpandsFewerStatesThanAStar(PlannerAlgorithm.BIDIRECTIONAL);
+    }
+
+    @Test
+    void testVisibilityExpandsFewerStatesThanAStar() {
+        assertExpandsFewerStatesThanAStar(PlannerAlgorithm.VISIBILITY);
+    }
+
+    @Test
+    void testAnytimePathsFollowTheMoveRules() {
+        assertPathsFollowTheMoveRules(PlannerAlgorithm.ANYTIME);
+    }
+
+    @Test
+    void testAnytimeExpandsFewerStatesThanAStar() {
+        assertExpandsFewerStatesThanAStar(PlannerAlgorithm.ANYTIME);
+    }
+
+    @Test
+    void testAnytimePathIsWithinEpsilon() {
+        Airspace airspace = airspace();
+        for (LngLat start : RESTAURANTS) {
+            SearchStats stats = new SearchStats();
+            List<LngLat> path = new GridPathPlanner(airspace, 2.0, Duration.ZERO).plan(start, DeliveryConstants.APPLETON_TOWER, stats);
+            List<LngLat> shortest = new GridPathPlanner(airspace).plan(start, DeliveryConstants.APPLETON_TOWER);
+            assertTrue(stats.getSuboptimalityBound() >= 1 && stats.getSuboptimalityBound() <= 2.0, "bound " + stats.getSuboptimalityBound());
+            assertTrue(path.size() - 2 <= 2.0 * (shortest.size() - 2));
+        }
+    }
+
+    @Test
+    void testAnytimeImprovesToTheShortestPathGivenTime() {
+        Airspace airspace = airspace();
+        for (LngLat start : RESTAURANTS) {
+            SearchStats stats = new SearchStats();
+            List<LngLat> path = new GridPathPlanner(airspace, 3.0, Duration.ofSeconds(30)).plan(start, DeliveryConstants.APPLETON_TOWER, stats);
+            List<LngLat> shortest = new GridPathPlanner(airspace).plan(start, DeliveryConstants.APPLETON_TOWER);
+            assertEquals(1.0, stats.getSuboptimalityBound());
+            // Which position stands for a lattice cell depends on the search
+            // order, so the two can end up a move apart either way
+            assertEquals(shortest.size(), path.size(), 1);
+        }
+    }
+
+    @Test
+    void testAnytimeRejectsEpsilonBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new GridPathPlanner(airspace(), 0.5, Duration.ZERO));
+    }
+
+    @Test
+    void testVisibilityFallsBackWhenStartIsEnclosed() {
+        // The graph ignores the zone around the start, so the lattice cannot
+        // follow its route and the A* fallback reports that there is no path
+        NoFlyZone box = zone("Box", new LngLat(-3.1900, 55.9440), new LngLat(-3.1890, 55.9440),
+                new LngLat(-3.1890, 55.9450), new LngLat(-3.1900, 55.9450));
+        Airspace airspace = Airspace.compile(Arrays.asList(box), centralArea());
+        LngLat inside = new LngLat(-3.1895, 55.9445);
+
+        assertNull(new GridPathPlanner(airspace, 20_000, PlannerAlgorithm.VISIBILITY).plan(inside, DeliveryConstants.APPLETON_TOWER));
+    }
+
+    private void assertPathsFollowTheMoveRules(PlannerAlgorithm algorithm) {
+        Airspace airspace = airspace();
+        GridPathPlanner planner = new GridPathPlanner(airspace, algorithm);
+        for (LngLat start : RESTAURANTS) {
+            List<LngLat> path = planner.plan(start, DeliveryConstants.APPLETON_TOWER);
+            assertNotNull(path);
+            assertSame(start, path.get(0));
+            assertTrue(path.get(path.size() - 1).closeTo(DeliveryConstants.APPLETON_TOWER));
+
+            boolean entered = airspace.isInCentralArea(start.getLng(), start.getLat());
+            for (int i = 1; i < path.size() - 2; i++) {
+                LngLat from = path.get(i);
+                LngLat to = path.get(i + 1);
+                assertEquals(0.00015, from.distanceTo(to), 1e-12);
+                assertTrue(airspace.isValidMove(from, to, entered));
+                entered |= airspace.isInCentralArea(to.getLng(), to.getLat());
+            }
+        }
+    }
+
+    private void assertExpandsFewerStatesThanAStar(PlannerAlgorithm algorithm) {
+        Airspace airspace = airspace();
+        int aStar = 0;
+        int other = 0;
+        for (LngLat start : RESTAURANTS) {
+            aStar += expanded(airspace, PlannerAlgorithm.ASTAR, start);
+            other += expanded(airspace, algorithm, start);
+        }
+        assertTrue(other < aStar, algorithm + ": " + other + " >= " + aStar);
+    }
+
+    @Test
+    void testParseAcceptsAnyCase() {
+        assertEquals(PlannerAlgorithm.BIDIRECTIONAL, PlannerAlgorithm.parse("bidirectional"));
+        assertEquals(PlannerAlgorithm.ASTAR, PlannerAlgorithm.parse(" AStar "));
+        assertThrows(IllegalArgumentException.class, () -> PlannerAlgorithm.parse("dijkstra"));
+    }
+
+    private int expanded(Airspace airspace, PlannerAlgorithm algorithm, LngLat start) {
+        SearchStats stats = new SearchStats();
+        assertNotNull(new GridPathPlanner(airspace, algorithm).plan(start, DeliveryConstants.APPLETON_TOWER, stats));
+        return stats.getNodesExpanded();
+    }
+
+    private Airspace airspace() {
+        List<NoFlyZone> zones = Arrays.asList(
+                zone("George Square Area",
+                        new LngLat(-3.190578818321228, 55.94402412577528), new LngLat(-3.1899887323379517, 55.94284650540911),
+                        new LngLat(-3.187097311019897, 55.94328811724263), new LngLat(-3.187682032585144, 55.944477740393744),
+                        new LngLat(-3.190578818321228, 55.94402412577528)),
+                zone("Dr Elsie Inglis Quadrangle",
+                        new LngLat(-3.1907182931900024, 55.94519570234043), new LngLat(-3.1906163692474365, 55.94498241796357),
+                        new LngLat(-3.1900262832641597, 55.94507079004411), new LngLat(-3.190133571624756, 55.94529951189038),
+                        new LngLat(-3.1907182931900024, 55.94519570234043)),
+                zone("Bristo Square Open Area",
+                        new LngLat(-3.189543485641479, 55.94552313663306), new LngLat(-3.189382553100586, 55.94553214854692),
+                        new LngLat(-3.189259171485901, 55.94544803726933), new LngLat(-3.1892001628875732, 55.94533688994374),
+                        new LngLat(-3.189194798469543, 55.94519570234043), new LngLat(-3.189135789871216, 55.94511759833873),
+                        new LngLat(-3.188138008117676, 55.9452738061846), new LngLat(-3.1885510683059692, 55.946105902745614),
+                        new LngLat(-3.1895381212234497, 55.94555918427592), new LngLat(-3.189543485641479, 55.94552313663306)),
+                zone("Bayes Central Area",
+                        new LngLat(-3.1876927614212036, 55.94520696732767), new LngLat(-3.187555968761444, 55.9449621408666),
+                        new LngLat(-3.186981976032257, 55.94505676722831), new LngLat(-3.1872327625751495, 55.94536993377657),
+                        new LngLat(-3.1874459981918335, 55.9453361389472), new LngLat(-3.1873735785484314, 55.94519344934259),
+                        new LngLat(-3.1875935196876526, 55.94515665035289), new LngLat(-3.187624365091324, 55.94521973430206),
+                        new LngLat(-3.1876927614212036, 55.94520696732767)));
+        return Airspace.compile(zones, centralArea());
+    }
+
+    private Region centralArea() {
+        Region central = new Region();
+        central.setName("central");
+        central.setVertices(Arrays.asList(
+                new LngLat(-3.192473, 55.946233), new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617), new LngLat(-3.184319, 55.946233)));
+        return central;
+    }
+
+    private NoFlyZone zone(String name, LngLat... vertices) {
+        NoFlyZone zone = new NoFlyZone();
+        zone.setName(name);
+        zone.setVertices(Arrays.asList(vertices));
+        return zone;
+    }
+}
@@ -0,0 +1,147 @@
+package uk.ac.ed.inf;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ed.inf.data.ReferenceData;
+import uk.ac.ed.inf.data.ReferenceDataStore;
+import uk.ac.ed.inf.exception.UpstreamUnavailableException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReferenceDataStoreTest {
+
+    private static final String RESTAURANTS_JSON =
+            "[{\"name\":\"Civerinos Slice\",\"location\":{\"lng\":-3.1912869215011597,\"lat\":55.945535152517735},"
+                    + "\"openingDays\":[\"MONDAY\",\"TUESDAY\"],\"menu\":[{\"name\":\"R1: Margarita\",\"priceInPence\":1000}]}]";
+    private static final String NO_FLY_ZONES_JSON =
+            "[{\"name\":\"George Square Area\",\"vertices\":[{\"lng\":-3.190578,\"lat\":55.944494},{\"lng\":-3.187986,\"lat\":55.944494},"
+                    + "{\"lng\":-3.187986,\"lat\":55.943335},{\"lng\":-3.190578,\"lat\":55.944494}]}]";
+    private static final String CENTRAL_AREA_JSON =
+            "{\"name\":\"central\",\"vertices\":[{\"lng\":-3.192473,\"lat\":55.946233},{\"lng\":-3.192473,\"lat\":55.942617},"
+                    + "{\"lng\":-3.184319,\"lat\":55.942617},{\"lng\":-3.184319,\"lat\":55.946233},{\"lng\":-3.192473,\"lat\":55.946233}]}";
+
+    private HttpServer server;
+    private ReferenceDataStore store;
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private volatile boolean failing;
+
+    @BeforeEach
+    void startStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/restaurants", exchange -> respond(exchange, RESTAURANTS_JSON, "\"restaurants-1\""));
+        server.createContext("/noFlyZones", exchange -> respond(exchange, NO_FLY_ZONES_JSON, "\"zones-1\""));
+        server.createContext("/centralArea", exchange -> respond(exchange, CENTRAL_AREA_JSON, "\"central-1\""));
+        server.start();
+
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        store = new ReferenceDataStore(baseUrl, Duration.ofMinutes(5), new RestTemplate(), Clock.systemUTC());
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        store.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void testLoadsSnapshotFromServer() {
+        ReferenceData data = store.current();
+
+        assertEquals(1, data.getVersion());
+        assertEquals(1, data.getRestaurants().size());
+        assertEquals("Civerinos Slice", data.getRestaurants().get(0).getName());
+        assertEquals(1, data.getNoFlyZones().size());
+        assertEquals(5, data.getCentralArea().getVertices().size());
+    }
+
+    @Test
+    void testNotModifiedKeepsSnapshot() {
+        ReferenceData first = store.current();
+
+        ReferenceData second = store.refresh();
+
+        assertSame(first, second);
+        assertEquals(3, notModifiedResponses.get());
+    }
+
+    @Test
+    void testUpstreamFailureServesStaleSnapshot() {
+        ReferenceData first = store.current();
+        failing = true;
+
+        ReferenceData second = store.refresh();
+
+        assertSame(first, second);
+        assertSame(first, store.current());
+    }
+
+    @Test
+    void testUnreachableServerIsReportedRatherThanEmptyData() {
+        failing = true;
+
+        assertThrows(UpstreamUnavailableException.class, () -> store.current());
+
+        // Nothing was published, so the next request tries again
+        failing = false;
+        assertEquals(1, store.current().getRestaurants().size());
+    }
+
+    @Test
+    void testLazySnapshotIsOnlyFetchedWhenNeeded() {
+        failing = true;
+        Supplier<ReferenceData> snapshot = store.lazyCurrent();
+        assertThrows(UpstreamUnavailableException.class, snapshot::get);
+
+        failing = false;
+        ReferenceData first = snapshot.get();
+        store.refresh();
+        assertSame(first, snapshot.get());
+    }
+
+    @Test
+    void testSeededSnapshotIsServedWithoutServer() {
+        failing = true;
+        ReferenceData seed = new ReferenceData(java.util.List.of(), java.util.List.of(), null, 7, java.time.Instant.EPOCH);
+
+        assertTrue(store.seed(seed));
+
+        assertEquals(7, store.current().getVersion());
+        // The server comes back and the seed is replaced by fresh data
+        failing = false;
+        assertEquals(8, store.refresh().getVersion());
+        assertEquals(1, store.current().getRestaurants().size());
+        assertFalse(store.seed(seed));
+    }
+
+    private void respond(HttpExchange exchange, String body, String etag) throws IOException {
+        if (failing) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedResponses.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
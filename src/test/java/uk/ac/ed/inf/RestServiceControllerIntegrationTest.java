@@ -5,12 +5,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import uk.ac.ed.inf.encoding.PathCodec;
+import uk.ac.ed.inf.models.LngLat;
+import java.util.List;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.closeTo;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -409,6 +415,109 @@ public class RestServiceControllerIntegrationTest {
                 .andExpect(status().isBadRequest());
 }
 
+        // /validateOrders
+        @Test
+        void testValidateOrders_ArrayInInputOrder() throws Exception {
+        MvcResult result = mockMvc.perform(post("/validateOrders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + VALID_ORDER_JSON + "," + INVALID_ORDER_JSON + "]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
 
-}
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].orderValidationCode").value("NO_ERROR"))
+                .andExpect(jsonPath("$[1].orderValidationCode").value("EMPTY_ORDER"));
+        }
 
+        @Test
+        void testValidateOrders_Ndjson() throws Exception {
+        MvcResult result = mockMvc.perform(post("/validateOrders")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .content(INVALID_ORDER_JSON + "\n" + VALID_ORDER_JSON + "\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        "{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"EMPTY_ORDER\"}\n"
+                                + "{\"orderStatus\":\"VALID\",\"orderValidationCode\":\"NO_ERROR\"}\n"));
+        }
+
+        @Test
+        void testValidateOrders_PrefersJsonByQuality() throws Exception {
+        MvcResult result = mockMvc.perform(post("/validateOrders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/x-ndjson;q=0.5", "application/json")
+                        .content("[" + VALID_ORDER_JSON + "]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(1));
+        }
+
+        // /calcDeliveryPaths
+        @Test
+        void testCalcDeliveryPaths_SharesRouteAndKeepsInvalidOrders() throws Exception {
+        mockMvc.perform(post("/calcDeliveryPaths")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + VALID_ORDER_JSON + "," + INVALID_ORDER_JSON + "," + VALID_ORDER_JSON + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].orderNo").value("12345"))
+                .andExpect(jsonPath("$[0].orderStatus").value("VALID"))
+                .andExpect(jsonPath("$[0].path[0].lng").isNumber())
+                .andExpect(jsonPath("$[1].orderValidationCode").value("EMPTY_ORDER"))
+                .andExpect(jsonPath("$[1].path").doesNotExist())
+                .andExpect(jsonPath("$[2].path.length()").isNumber());
+        }
+
+        // /calcDeliveryPathsGeoJSON
+        @Test
+        void testCalcDeliveryPathsGeoJSON_FeatureCollection() throws Exception {
+        MvcResult result = mockMvc.perform(post("/calcDeliveryPathsGeoJSON")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + VALID_ORDER_JSON + "," + INVALID_ORDER_JSON + "]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.type").value("FeatureCollection"))
+                .andExpect(jsonPath("$.features.length()").value(1))
+                .andExpect(jsonPath("$.features[0].properties.orderNo").value("12345"))
+                .andExpect(jsonPath("$.features[0].geometry.coordinates[0].length()").value(2));
+        }
+
+        // /calcDeliveryPath content negotiation
+        @Test
+        void testCalcDeliveryPath_AnglesEncoding() throws Exception {
+        MvcResult result = mockMvc.perform(post("/calcDeliveryPath")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(PathCodec.ANGLES_VALUE)
+                        .content(VALID_ORDER_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PathCodec.ANGLES_VALUE))
+                .andReturn();
+
+        List<LngLat> path = PathCodec.decodeAngles(result.getResponse().getContentAsByteArray());
+        assertTrue(path.size() > 2);
+        }
+
+        @Test
+        void testCalcDeliveryPath_LowQualityEncodingIsNotChosen() throws Exception {
+        mockMvc.perform(post("/calcDeliveryPath")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/json;q=1", PathCodec.ANGLES_VALUE + ";q=0.1")
+                        .content(VALID_ORDER_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].lng").isNumber());
+        }
+}
@@ -0,0 +1,189 @@
+package uk.ac.ed.inf;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import uk.ac.ed.inf.models.*;
+import uk.ac.ed.inf.pathfinding.Airspace;
+import uk.ac.ed.inf.pathfinding.PlannerAlgorithm;
+import uk.ac.ed.inf.pathfinding.RouteCache;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RouteCacheTest {
+
+    private static final LngLat END = new LngLat(-3.186874, 55.944494);
+
+    @Test
+    void testSecondLookupIsAHit() {
+        RouteCache cache = new RouteCache();
+        AtomicInteger plannerRuns = new AtomicInteger();
+        LngLat start = new LngLat(-3.19, 55.945);
+
+        List<LngLat> first = cache.getOrCompute(start, END, Airspace.compile(Collections.emptyList(), createCentralArea()), () -> plan(start, plannerRuns));
+        List<LngLat> second = cache.getOrCompute(start, END, Airspace.compile(Collections.emptyList(), createCentralArea()), () -> plan(start, plannerRuns));
+
+        assertSame(first, second);
+        assertEquals(1, plannerRuns.get());
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getMisses());
+        assertThrows(UnsupportedOperationException.class, () -> first.add(END));
+    }
+
+    @Test
+    void testConcurrentMissesPlanOnce() throws Exception {
+        RouteCache cache = new RouteCache();
+        AtomicInteger plannerRuns = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        LngLat start = new LngLat(-3.19, 55.945);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<LngLat>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> cache.getOrCompute(start, END, Airspace.compile(Collections.emptyList(), createCentralArea()), () -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return plan(start, plannerRuns);
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<List<LngLat>> result : results) {
+                assertNotNull(result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, plannerRuns.get());
+    }
+
+    @Test
+    void testPlannerErrorReachesCoalescedCallers() throws Exception {
+        RouteCache cache = new RouteCache();
+        CountDownLatch release = new CountDownLatch(1);
+        LngLat start = new LngLat(-3.19, 55.945);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<List<LngLat>>> results = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> cache.getOrCompute(start, END, Airspace.compile(Collections.emptyList(), createCentralArea()), () -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new StackOverflowError();
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            // None of them may be left waiting on the failed call
+            for (Future<List<LngLat>> result : results) {
+                assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testEvictionAndZoneChangeInvalidation() {
+        RouteCache cache = new RouteCache(2, 1000);
+        AtomicInteger plannerRuns = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            LngLat start = new LngLat(-3.19 + i * 0.001, 55.945);
+            cache.getOrCompute(start, END, Airspace.compile(Collections.emptyList(), createCentralArea()), () -> plan(start, plannerRuns));
+        }
+        assertEquals(2, cache.getStats().getSize());
+        assertEquals(1, cache.getStats().getEvictions());
+
+        NoFlyZone zone = new NoFlyZone();
+        zone.setName("New");
+        zone.setVertices(Arrays.asList(new LngLat(0, 0), new LngLat(1, 0), new LngLat(1, 1), new LngLat(0, 0)));
+        LngLat start = new LngLat(-3.19, 55.945);
+        cache.getOrCompute(start, END, Airspace.compile(Arrays.asList(zone), createCentralArea()), () -> plan(start, plannerRuns));
+
+        assertEquals(1, cache.getStats().getSize());
+        assertEquals(1, cache.getStats().getInvalidations());
+        assertEquals(4, plannerRuns.get());
+    }
+
+    @Test
+    void testPlanAgainstReplacedAirspaceIsNotStored() {
+        RouteCache cache = new RouteCache();
+        AtomicInteger plannerRuns = new AtomicInteger();
+        NoFlyZone zone = new NoFlyZone();
+        zone.setName("New");
+        zone.setVertices(Arrays.asList(new LngLat(0, 0), new LngLat(1, 0), new LngLat(1, 1), new LngLat(0, 0)));
+        Airspace old = Airspace.compile(Collections.emptyList(), createCentralArea());
+        Airspace current = Airspace.compile(Arrays.asList(zone), createCentralArea());
+        LngLat start = new LngLat(-3.19, 55.945);
+        LngLat other = new LngLat(-3.191, 55.945);
+
+        cache.setCurrentAirspace(old);
+        cache.getOrCompute(start, END, old, () -> plan(start, plannerRuns));
+        cache.setCurrentAirspace(current);
+        List<LngLat> fresh = cache.getOrCompute(start, END, current, () -> plan(start, plannerRuns));
+        // A request that picked up the old snapshot before the refresh finishes late
+        cache.getOrCompute(other, END, old, () -> plan(other, plannerRuns));
+
+        assertEquals(1, cache.getStats().getSize());
+        assertEquals(1, cache.getStats().getInvalidations());
+        assertSame(fresh, cache.getOrCompute(start, END, current, () -> plan(start, plannerRuns)));
+        assertEquals(3, plannerRuns.get());
+    }
+
+    @Test
+    void testUnreachablePairIsOnlySearchedOnce() {
+        RouteCache cache = new RouteCache();
+        AtomicInteger plannerRuns = new AtomicInteger();
+        Airspace airspace = Airspace.compile(Collections.emptyList(), createCentralArea());
+        LngLat start = new LngLat(-3.19, 55.945);
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(cache.getOrCompute(start, END, airspace, () -> {
+                plannerRuns.incrementAndGet();
+                return null;
+            }));
+        }
+
+        assertEquals(1, plannerRuns.get());
+        assertEquals(2, cache.getStats().getHits());
+    }
+
+    @Test
+    void testAlgorithmsAreCachedApart() {
+        RouteCache cache = new RouteCache();
+        AtomicInteger plannerRuns = new AtomicInteger();
+        LngLat start = new LngLat(-3.19, 55.945);
+        Airspace airspace = Airspace.compile(Collections.emptyList(), createCentralArea());
+
+        List<LngLat> aStar = cache.getOrCompute(start, END, airspace, () -> plan(start, plannerRuns));
+        List<LngLat> bidirectional = cache.getOrCompute(start, END, airspace, PlannerAlgorithm.BIDIRECTIONAL, () -> plan(start, plannerRuns));
+
+        assertNotSame(aStar, bidirectional);
+        assertEquals(2, plannerRuns.get());
+        assertSame(aStar, cache.getOrCompute(start, END, airspace, PlannerAlgorithm.ASTAR, () -> plan(start, plannerRuns)));
+    }
+
+    private List<LngLat> plan(LngLat start, AtomicInteger plannerRuns) {
+        plannerRuns.incrementAndGet();
+        return new ArrayList<>(Arrays.asList(start, start, END, END));
+    }
+
+    private Region createCentralArea() {
+        Region r = new Region();
+        r.setName("central");
+        r.setVertices(Arrays.asList(
+                new LngLat(-3.192473, 55.946233),
+                new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617),
+                new LngLat(-3.184319, 55.946233),
+                new LngLat(-3.192473, 55.946233)
+        ));
+        return r;
+    }
+}
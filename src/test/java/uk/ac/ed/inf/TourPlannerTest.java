@@ -0,0 +1,99 @@
+package uk.ac.ed.inf;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import uk.ac.ed.inf.models.*;
+import uk.ac.ed.inf.pathfinding.Airspace;
+import uk.ac.ed.inf.tours.TourPlanner;
+import java.util.*;
+
+public class TourPlannerTest {
+
+    @Test
+    void testToursCoverEveryOrderWithinTheLimits() {
+        Map<Restaurant, List<String>> orders = orders(3);
+        TourPlan plan = new TourPlanner().plan(orders, airspace(), 2000);
+
+        Set<String> delivered = new HashSet<>();
+        for (Tour tour : plan.getTours()) {
+            assertTrue(tour.getOrderNos().size() <= TourPlanner.DEFAULT_MAX_ORDERS_PER_TOUR);
+            assertTrue(tour.getMoves() <= 2000);
+            assertEquals(tour.getRestaurants().size() + 1, tour.getLegs().size());
+            for (String orderNo : tour.getOrderNos()) {
+                assertTrue(delivered.add(orderNo), orderNo + " delivered twice");
+            }
+        }
+        assertEquals(orders.values().stream().mapToInt(List::size).sum(), delivered.size());
+        assertTrue(plan.getUnassignedOrderNos().isEmpty());
+    }
+
+    @Test
+    void testLegsJoinUpIntoOneFlight() {
+        Map<Restaurant, List<String>> orders = orders(2);
+        Map<String, LngLat> locations = new HashMap<>();
+        orders.keySet().forEach(r -> locations.put(r.getName(), r.getLocation()));
+
+        for (Tour tour : new TourPlanner().plan(orders, airspace(), 2000).getTours()) {
+            int moves = 0;
+            for (int leg = 0; leg < tour.getLegs().size(); leg++) {
+                List<LngLat> path = tour.getLegs().get(leg);
+                LngLat target = leg < tour.getRestaurants().size()
+                        ? locations.get(tour.getRestaurants().get(leg)) : DeliveryConstants.APPLETON_TOWER;
+                assertTrue(path.get(path.size() - 1).distanceTo(target) < 0.00015);
+                moves += path.size() - 1;
+            }
+            assertEquals(tour.getMoves(), moves);
+        }
+    }
+
+    @Test
+    void testBatchingSavesMoves() {
+        TourPlan plan = new TourPlanner().plan(orders(2), airspace(), 2000);
+        assertTrue(plan.getTotalMoves() < plan.getSingleOrderMoves(), plan.getTotalMoves() + " >= " + plan.getSingleOrderMoves());
+    }
+
+    @Test
+    void testRestaurantsOutOfRangeAreUnassigned() {
+        TourPlan plan = new TourPlanner().plan(orders(1), airspace(), 40);
+        for (Tour tour : plan.getTours()) {
+            assertTrue(tour.getMoves() <= 40);
+        }
+        assertFalse(plan.getUnassignedOrderNos().isEmpty());
+    }
+
+    // perRestaurant orders at each of the ILP restaurants
+    private Map<Restaurant, List<String>> orders(int perRestaurant) {
+        double[][] locations = {
+                {-3.1912869215011597, 55.945535152517735}, {-3.202541470527649, 55.943284737579376},
+                {-3.1838572025299072, 55.94449876875712}, {-3.1940174102783203, 55.94390696616939},
+                {-3.1810810679852035, 55.938910643735845}, {-3.185428203143916, 55.945846113595},
+                {-3.179798972064253, 55.93988408448313}};
+        Map<Restaurant, List<String>> orders = new LinkedHashMap<>();
+        for (int r = 0; r < locations.length; r++) {
+            Restaurant restaurant = new Restaurant();
+            restaurant.setName("R" + r);
+            restaurant.setLocation(new LngLat(locations[r][0], locations[r][1]));
+            List<String> orderNos = new ArrayList<>();
+            for (int k = 0; k < perRestaurant; k++) {
+                orderNos.add("R" + r + "-" + k);
+            }
+            orders.put(restaurant, orderNos);
+        }
+        return orders;
+    }
+
+    private Airspace airspace() {
+        NoFlyZone georgeSquare = new NoFlyZone();
+        georgeSquare.setName("George Square Area");
+        georgeSquare.setVertices(Arrays.asList(
+                new LngLat(-3.190578818321228, 55.94402412577528), new LngLat(-3.1899887323379517, 55.94284650540911),
+                new LngLat(-3.187097311019897, 55.94328811724263), new LngLat(-3.187682032585144, 55.944477740393744),
+                new LngLat(-3.190578818321228, 55.94402412577528)));
+        Region central = new Region();
+        central.setName("central");
+        central.setVertices(Arrays.asList(
+                new LngLat(-3.192473, 55.946233), new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617), new LngLat(-3.184319, 55.946233)));
+        return Airspace.compile(List.of(georgeSquare), central);
+    }
+}
@@ -0,0 +1,133 @@
+package uk.ac.ed.inf;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.data.ReferenceData;
+import uk.ac.ed.inf.data.SnapshotFile;
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.models.Pizza;
+import uk.ac.ed.inf.models.Restaurant;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ValidateOrdersTest {
+    private static final String VALID_ORDER = "{\"orderNo\":\"A1\",\"orderDate\":\"2025-01-05\",\"priceTotalInPence\":1100,"
+            + "\"pizzasInOrder\":[{\"name\":\"R1: Margarita\",\"priceInPence\":1000}],"
+            + "\"creditCardInformation\":{\"creditCardNumber\":\"4485959141852684\",\"creditCardExpiry\":\"12/30\",\"cvv\":\"123\"}}";
+    private static final String WRONG_TOTAL_ORDER = VALID_ORDER.replace("\"A1\"", "\"A2\"").replace("1100", "1200");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testValidatesNdjsonFileInOrder() throws IOException {
+        Path snapshot = writeSnapshot();
+        Path orders = Files.createTempFile("orders", ".ndjson");
+        Path results = Files.createTempFile("results", ".ndjson");
+        try {
+            Files.writeString(orders, VALID_ORDER + "\n" + WRONG_TOTAL_ORDER + "\n");
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+            int status = ValidateOrders.run(new String[]{"--ndjson", "--snapshot", snapshot.toString(), orders.toString(), results.toString()},
+                    System.in, System.out, new PrintStream(err, true, StandardCharsets.UTF_8));
+
+            assertEquals(0, status);
+            List<String> lines = Files.readAllLines(results);
+            assertEquals(2, lines.size());
+            assertEquals("NO_ERROR", objectMapper.readTree(lines.get(0)).get("orderValidationCode").asText());
+            assertEquals("TOTAL_INCORRECT", objectMapper.readTree(lines.get(1)).get("orderValidationCode").asText());
+            assertEquals("Validated 2 orders against reference data version 1", err.toString(StandardCharsets.UTF_8).trim());
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(orders);
+            Files.deleteIfExists(results);
+        }
+    }
+
+    @Test
+    void testReadsJsonArrayFromStdin() throws IOException {
+        Path snapshot = writeSnapshot();
+        try {
+            AtomicBoolean stdinClosed = new AtomicBoolean();
+            ByteArrayInputStream in = new ByteArrayInputStream(("[" + WRONG_TOTAL_ORDER + "," + VALID_ORDER + "]").getBytes(StandardCharsets.UTF_8)) {
+                @Override
+                public void close() {
+                    stdinClosed.set(true);
+                }
+            };
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            int status = ValidateOrders.run(new String[]{"--snapshot", snapshot.toString(), "-"},
+                    in, new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(new ByteArrayOutputStream()));
+
+            assertEquals(0, status);
+            JsonNode results = objectMapper.readTree(out.toByteArray());
+            assertEquals(2, results.size());
+            assertEquals("TOTAL_INCORRECT", results.get(0).get("orderValidationCode").asText());
+            assertEquals("NO_ERROR", results.get(1).get("orderValidationCode").asText());
+            assertFalse(stdinClosed.get());
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    @Test
+    void testMalformedOrderFailsWithItsPosition() throws IOException {
+        Path snapshot = writeSnapshot();
+        Path orders = Files.createTempFile("orders", ".ndjson");
+        Path results = Files.createTempFile("results", ".json");
+        try {
+            Files.writeString(orders, VALID_ORDER + "\n" + VALID_ORDER.replace("1100", "\"1100p\"") + "\n" + VALID_ORDER + "\n");
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+            int status = ValidateOrders.run(new String[]{"--snapshot", snapshot.toString(), orders.toString(), results.toString()},
+                    System.in, System.out, new PrintStream(err, true, StandardCharsets.UTF_8));
+
+            assertEquals(1, status);
+            String message = err.toString(StandardCharsets.UTF_8);
+            assertTrue(message.startsWith("ValidateOrders failed: malformed order at line 2, column "), message);
+            // The partial results are not a complete JSON array
+            assertThrows(JsonProcessingException.class, () -> objectMapper.readTree(results.toFile()));
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(orders);
+            Files.deleteIfExists(results);
+        }
+    }
+
+    @Test
+    void testBadArgumentsPrintUsage() {
+        PrintStream quiet = new PrintStream(new ByteArrayOutputStream());
+        assertEquals(2, ValidateOrders.run(new String[0], System.in, quiet, quiet));
+        assertEquals(2, ValidateOrders.run(new String[]{"--bogus", "orders.json"}, System.in, quiet, quiet));
+        assertEquals(2, ValidateOrders.run(new String[]{"a", "b", "c"}, System.in, quiet, quiet));
+    }
+
+    private Path writeSnapshot() throws IOException {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setName("Civerinos Slice");
+        restaurant.setLocation(new LngLat(-3.1912869215011597, 55.945535152517735));
+        restaurant.setOpeningDays(Arrays.asList("MONDAY", "SUNDAY"));
+        restaurant.setMenu(Arrays.asList(new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400)));
+        ReferenceData data = new ReferenceData(List.of(restaurant), Collections.emptyList(), null, 1, Instant.EPOCH);
+        Path snapshot = Files.createTempFile("snapshot", ".bin");
+        SnapshotFile.write(snapshot, data, null);
+        return snapshot;
+    }
+}
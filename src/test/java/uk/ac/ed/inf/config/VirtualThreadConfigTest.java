@@ -0,0 +1,24 @@
+package uk.ac.ed.inf.config;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+public class VirtualThreadConfigTest {
+
+    @Test
+    void testExecutorMatchesRuntime() throws Exception {
+        ExecutorService executor = VirtualThreadConfig.newVirtualThreadPerTaskExecutor();
+        if (Runtime.version().feature() < 21) {
+            assertNull(executor);
+            return;
+        }
+        try {
+            Future<Boolean> virtual = executor.submit(() -> (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+            assertTrue(virtual.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
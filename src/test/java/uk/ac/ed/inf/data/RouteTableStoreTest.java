@@ -0,0 +1,113 @@
+package uk.ac.ed.inf.data;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import uk.ac.ed.inf.batch.BatchExecutor;
+import uk.ac.ed.inf.models.DeliveryConstants;
+import uk.ac.ed.inf.models.LngLat;
+import uk.ac.ed.inf.models.NoFlyZone;
+import uk.ac.ed.inf.models.Pizza;
+import uk.ac.ed.inf.models.Region;
+import uk.ac.ed.inf.models.Restaurant;
+import uk.ac.ed.inf.pathfinding.Airspace;
+import uk.ac.ed.inf.pathfinding.RouteTable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+
+public class RouteTableStoreTest {
+
+    private static final LngLat CIVERINOS = new LngLat(-3.1912869215011597, 55.945535152517735);
+    private static final LngLat DOMINOS = new LngLat(-3.1838572025299072, 55.94449876875712);
+
+    @Test
+    void testTableServesOutboundAndReturnRoutes() {
+        ReferenceData referenceData = createReferenceData();
+        RouteTable table = RouteTableStore.build(referenceData, new BatchExecutor());
+        Airspace airspace = referenceData.getAirspace();
+        LngLat tower = DeliveryConstants.APPLETON_TOWER;
+
+        assertEquals(2, table.size());
+        List<LngLat> outbound = table.lookup(CIVERINOS, tower, airspace);
+        assertNotNull(outbound);
+        assertEquals(CIVERINOS.getLng(), outbound.get(0).getLng());
+        assertTrue(outbound.get(outbound.size() - 1).closeTo(tower));
+
+        List<LngLat> back = table.lookup(tower, CIVERINOS, airspace);
+        assertEquals(outbound.size(), back.size());
+        assertSame(outbound.get(0), back.get(back.size() - 1));
+
+        // Unknown start points and other airspaces are not covered
+        assertNull(table.lookup(new LngLat(-3.19, 55.94), tower, airspace));
+        assertNull(table.lookup(CIVERINOS, tower, Airspace.compile(List.of(), referenceData.getCentralArea())));
+    }
+
+    @Test
+    void testSnapshotFileRoundTrip() throws IOException {
+        ReferenceData referenceData = createReferenceData();
+        RouteTable table = RouteTableStore.build(referenceData, new BatchExecutor());
+
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            SnapshotFile.write(file, referenceData, table);
+            SnapshotFile read = SnapshotFile.read(file);
+
+            ReferenceData loaded = read.getReferenceData();
+            assertEquals(referenceData.getVersion(), loaded.getVersion());
+            assertEquals(referenceData.getAirspace().getContentHash(), loaded.getAirspace().getContentHash());
+            assertEquals("Civerinos Slice", loaded.getRestaurants().get(0).getName());
+            assertEquals(1000, loaded.getRestaurants().get(0).getMenu().get(0).getPriceInPence());
+            assertEquals(List.of("MONDAY", "SUNDAY"), loaded.getRestaurants().get(0).getOpeningDays());
+
+            LngLat tower = DeliveryConstants.APPLETON_TOWER;
+            for (LngLat start : Arrays.asList(CIVERINOS, DOMINOS)) {
+                List<LngLat> expected = table.lookup(start, tower, referenceData.getAirspace());
+                List<LngLat> actual = read.getRouteTable().lookup(start, tower, loaded.getAirspace());
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).getLng(), actual.get(i).getLng());
+                    assertEquals(expected.get(i).getLat(), actual.get(i).getLat());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testCorruptSnapshotFileIsRejected() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            Files.write(file, new byte[] { 'I', 'L', 'P', 'S', 0, 0, 0, 1, 0, 0 });
+            assertThrows(IOException.class, () -> SnapshotFile.read(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private ReferenceData createReferenceData() {
+        Restaurant civerinos = new Restaurant();
+        civerinos.setName("Civerinos Slice");
+        civerinos.setLocation(CIVERINOS);
+        civerinos.setOpeningDays(Arrays.asList("MONDAY", "SUNDAY"));
+        civerinos.setMenu(Arrays.asList(new Pizza("R1: Margarita", 1000)));
+        Restaurant dominos = new Restaurant();
+        dominos.setName("Domino's Pizza - Central");
+        dominos.setLocation(DOMINOS);
+
+        NoFlyZone zone = new NoFlyZone();
+        zone.setName("George Square Area");
+        zone.setVertices(Arrays.asList(
+                new LngLat(-3.190578818321228, 55.94402412577528), new LngLat(-3.1899887323379517, 55.94284650540911),
+                new LngLat(-3.187097311019897, 55.94328811724263), new LngLat(-3.187682032585144, 55.944477740393744),
+                new LngLat(-3.190578818321228, 55.94402412577528)));
+        Region central = new Region();
+        central.setName("central");
+        central.setVertices(Arrays.asList(
+                new LngLat(-3.192473, 55.946233), new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617), new LngLat(-3.184319, 55.946233)));
+        return new ReferenceData(Arrays.asList(civerinos, dominos), List.of(zone), central, 1, Instant.EPOCH);
+    }
+}
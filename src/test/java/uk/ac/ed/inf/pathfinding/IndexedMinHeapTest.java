@@ -0,0 +1,56 @@
+package uk.ac.ed.inf.pathfinding;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndexedMinHeapTest {
+
+    @Test
+    void testPollReturnsIdsInPriorityOrder() {
+        IndexedMinHeap heap = new IndexedMinHeap(2);
+        heap.insert(0, 5.0);
+        heap.insert(1, 3.0);
+        heap.insert(2, 4.0);
+        heap.insert(3, 1.0);
+
+        assertEquals(3, heap.poll());
+        assertEquals(1, heap.poll());
+        assertEquals(2, heap.poll());
+        assertEquals(0, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    void testDecreaseKeyMovesIdToFront() {
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        heap.insert(0, 1.0);
+        heap.insert(1, 2.0);
+        heap.insert(2, 3.0);
+
+        heap.decreaseKey(2, 0.5);
+
+        assertEquals(2, heap.poll());
+        assertFalse(heap.contains(2));
+        assertTrue(heap.contains(0));
+        assertEquals(0, heap.poll());
+        assertEquals(1, heap.poll());
+    }
+
+    @Test
+    void testUpdateRaisingKeyRestoresHeapOrder() {
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        for (int id = 0; id < 7; id++) {
+            heap.insert(id, id);
+        }
+
+        heap.update(0, 4.5);
+        heap.update(5, 0.5);
+
+        assertEquals(0.5, heap.peekKey());
+        int[] expected = {5, 1, 2, 3, 4, 0, 6};
+        for (int id : expected) {
+            assertEquals(id, heap.poll());
+        }
+        assertTrue(heap.isEmpty());
+    }
+}